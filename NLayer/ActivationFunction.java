@@ -1,9 +1,17 @@
 /**
- * This abstract class describes any function, with methods describing the activation function and its derivative
+ * This abstract class describes any function, with methods describing the activation function and its derivative. Besides
+ * the one-value methods, it has bulk methods that work on a run of neurons in an array, which the network calls once per
+ * layer. Their defaults loop over the one-value methods; subclasses override them with loops that have no calls in them,
+ * which the JIT can unroll and vectorize.
  * 
  * Table of Contents
  *  • public abstract double f(double x)
  *  • public abstract double fPrime(double x)
+ *  • public double fPrimeFromOutput(double x, double fx)
+ *  • public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+ *  • public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+ *  • public void apply(double in[], double out[], int from, int to)
+ *  • public void apply(float in[], float out[], int from, int to)
  * 
  * @author Kyle Li
  * @version 30 April 2024
@@ -26,4 +34,94 @@ public abstract class ActivationFunction
  * @return  the change in the activation function
  */
    public abstract double fPrime(double x);
+
+/**
+ * The derivative of the activation function at x when f(x) is already known, such as a neuron whose activation was kept
+ * from the forward pass. Functions whose derivative can be written in terms of f(x) override this to skip evaluating f 
+ * again; the default simply calls fPrime.
+ * 
+ * @param x   activations in previous layer * weights, or uppercase theta
+ * @param fx  the value of the activation, f(x)
+ * @return    the change in the activation function
+ */
+   public double fPrimeFromOutput(double x, double fx)
+   {
+      return fPrime(x);
+   }
+
+/**
+ * Finds the derivative of the activation function for a whole run of neurons at once from their kept activations, so a
+ * layer pays for one call instead of one per neuron and a subclass can replace the loop with a tighter one
+ * 
+ * @param x     the theta values of the neurons
+ * @param fx    the activations of the neurons, f(x)
+ * @param out   receives the derivatives
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = fPrimeFromOutput(x[i], fx[i]);
+      }
+   } // public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+
+/**
+ * Finds the derivative of the activation function for a whole run of single-precision neurons at once
+ * 
+ * @param x     the theta values of the neurons
+ * @param fx    the activations of the neurons, f(x)
+ * @param out   receives the derivatives
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = (float) fPrimeFromOutput(x[i], fx[i]);
+      }
+   } // public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+
+/**
+ * Applies the activation function to a run of neurons. out may be the same array as in, so theta values can be turned
+ * into activations in place.
+ * 
+ * @param in    the theta values of the neurons
+ * @param out   receives the activations
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void apply(double in[], double out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = f(in[i]);
+      }
+   } // public void apply(double in[], double out[], int from, int to)
+
+/**
+ * Applies the activation function to a run of single-precision neurons, evaluating it in double precision
+ * 
+ * @param in    the theta values of the neurons
+ * @param out   receives the activations, and may be the same array as in
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void apply(float in[], float out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = (float) f(in[i]);
+      }
+   } // public void apply(float in[], float out[], int from, int to)
 } // public abstract class ActivationFunction 
@@ -0,0 +1,100 @@
+/**
+ * Adam keeps two moments for every weight: the running mean m of its gradient, as momentum does, and the running mean v
+ * of its squared gradient, as RMSProp does. Both start at zero, so early on they are too small by the factors
+ * 1 - beta1^t and 1 - beta2^t after t updates. The weight moves by lambda * mHat / (sqrt(vHat) + epsilon), where mHat
+ * and vHat are the corrected means.
+ *
+ * The corrections are the same for every weight, so beginStep folds them into one step size and one epsilon for the
+ * update, lambda * sqrt(1 - beta2^t) / (1 - beta1^t) and epsilon * sqrt(1 - beta2^t). The inner loop then does no
+ * division by the corrections at all.
+ *
+ * Table of Contents
+ *  • public Adam(int layers[], double beta1, double beta2, double epsilon)
+ *  • public void beginStep(double lambda)
+ *  • public void step(int layer, double w[], int off, double g[], int gOff, int len)
+ *  • public String toString()
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 20 May 2024
+ */
+public class Adam extends Optimizer
+{
+   static final int MEAN = 0;
+   static final int MEAN_SQUARE = 1;
+
+   double beta1;
+   double beta2;
+   double epsilon;
+
+   double stepSize;
+   double stepEpsilon;
+
+/**
+ * Constructor for the Adam class
+ *
+ * @param layers   the number of neurons in every layer of the network
+ * @param beta1    the decay of the mean gradient, usually 0.9
+ * @param beta2    the decay of the mean squared gradient, usually 0.999
+ * @param epsilon  the term that keeps the step finite when the mean squared gradient is zero
+ */
+   public Adam(int layers[], double beta1, double beta2, double epsilon)
+   {
+      super(layers, 2);
+      this.beta1 = beta1;
+      this.beta2 = beta2;
+      this.epsilon = epsilon;
+   }
+
+/**
+ * Starts one weight update, finding the bias-corrected step size and epsilon for it
+ *
+ * @param lambda  the learning rate of this update
+ */
+   public void beginStep(double lambda)
+   {
+      double correction;
+
+      super.beginStep(lambda);
+
+      correction = Math.sqrt(1.0 - Math.pow(beta2, steps));
+      stepSize = lambda * correction / (1.0 - Math.pow(beta1, steps));
+      stepEpsilon = epsilon * correction;
+   } // public void beginStep(double lambda)
+
+/**
+ * Updates len weights of one layer and both of their moments
+ *
+ * @param layer  the index of the weight array, so that weights[layer] is w
+ * @param w      the flat weights of the layer
+ * @param off    the index of the first weight to update, in w and in both moments
+ * @param g      the gradients
+ * @param gOff   the index of the gradient of the first weight
+ * @param len    the number of weights to update
+ */
+   public void step(int layer, double w[], int off, double g[], int gOff, int len)
+   {
+      int i;
+      double grad;
+      double m[] = state[MEAN][layer];
+      double v[] = state[MEAN_SQUARE][layer];
+
+      for (i = 0; i < len; i++)
+      {
+         grad = g[gOff + i];
+         m[off + i] = beta1 * m[off + i] + (1.0 - beta1) * grad;
+         v[off + i] = beta2 * v[off + i] + (1.0 - beta2) * grad * grad;
+         w[off + i] += stepSize * m[off + i] / (Math.sqrt(v[off + i]) + stepEpsilon);
+      }
+   } // public void step(int layer, double w[], int off, double g[], int gOff, int len)
+
+/**
+ * Describes the optimizer for the configuration echo
+ *
+ * @return  the name and parameters of the optimizer
+ */
+   public String toString()
+   {
+      return ADAM + " (beta1 " + beta1 + ", beta2 " + beta2 + ", epsilon " + epsilon + ")";
+   }
+} // public class Adam extends Optimizer
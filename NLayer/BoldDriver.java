@@ -0,0 +1,106 @@
+/**
+ * The bold driver adapts the learning rate to the error instead of following a schedule. After every iteration whose
+ * error is known, it compares that error with the error of the last weights it accepted. When the error fell, the new
+ * weights are accepted and the rate is raised by the factor increase, so training speeds up for as long as it keeps
+ * working. When the error rose, the step was too big: the weights and the optimizer moments are rolled back to the last
+ * accepted ones and the rate is cut by the factor decrease.
+ *
+ * The rate is never cut below a floor, lambdaMin or a MIN_RATE_FRACTION of the starting rate, whichever is larger.
+ * Without it, once the error stops falling every step is rejected and the rate decays through the denormals to zero,
+ * after which the weights never change and training spins to maxIterations. A step rejected at the floor marks the bold
+ * driver as stalled instead, and training stops.
+ *
+ * The accepted weights are kept in a Checkpointer.Snapshot allocated once at the start, so accepting and rolling back
+ * are plain array copies and training allocates nothing.
+ *
+ * Table of Contents
+ *  • public BoldDriver(int layers[], int moments, double lambda, double minLambda, double increase, double decrease)
+ *  • public void start(double lambda, double error)
+ *  • public boolean accept(double error)
+ *  • public String toString()
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 21 May 2024
+ */
+public class BoldDriver
+{
+   static final double MIN_RATE_FRACTION = 1e-6;
+
+   double lambda;
+   double floor;
+   double increase;
+   double decrease;
+   double acceptedError;
+   int rollbacks;
+   boolean stalled;
+
+   Checkpointer.Snapshot accepted;
+
+/**
+ * Constructor for the BoldDriver class that allocates the snapshot of the accepted weights
+ *
+ * @param layers     the number of neurons in every layer
+ * @param moments    the number of optimizer moments
+ * @param lambda     the configured learning rate, which sets the floor together with minLambda
+ * @param minLambda  the lowest rate the bold driver may cut to, if above MIN_RATE_FRACTION * lambda
+ * @param increase   the factor the rate is raised by after the error falls
+ * @param decrease   the factor the rate is cut by after the error rises
+ */
+   public BoldDriver(int layers[], int moments, double lambda, double minLambda, double increase, double decrease)
+   {
+      floor = Math.max(minLambda, lambda * MIN_RATE_FRACTION);
+      this.increase = increase;
+      this.decrease = decrease;
+      accepted = new Checkpointer.Snapshot(layers, moments);
+   }
+
+/**
+ * Starts adapting from the weights training starts with, which the caller copies into the accepted snapshot
+ *
+ * @param lambda  the learning rate to start from
+ * @param error   the error of the starting weights, or Double.MAX_VALUE when it is not known yet
+ */
+   public void start(double lambda, double error)
+   {
+      this.lambda = lambda;
+      acceptedError = error;
+   }
+
+/**
+ * Decides whether the weights that gave an error are kept, and adapts the learning rate. The caller copies the weights
+ * into the accepted snapshot when they are kept, and restores them from it when they are not. A step rejected when the
+ * rate is already at the floor stalls the bold driver.
+ *
+ * @param error  the error of the weights after the latest iteration
+ * @return       true if the weights are kept, false if they must be rolled back
+ */
+   public boolean accept(double error)
+   {
+      boolean improved = error < acceptedError;
+
+      if (improved)
+      {
+         acceptedError = error;
+         lambda *= increase;
+      }
+      else
+      {
+         stalled = lambda <= floor;
+         lambda = Math.max(lambda * decrease, floor);
+         rollbacks++;
+      }
+      return improved;
+   } // public boolean accept(double error)
+
+/**
+ * Describes the bold driver for the configuration echo
+ *
+ * @return  the name and factors of the bold driver
+ */
+   public String toString()
+   {
+      return LearningRateSchedule.BOLD_DRIVER + " (times " + increase + " while the error falls, times " + decrease +
+             " and roll back when it rises)";
+   }
+} // public class BoldDriver
@@ -0,0 +1,311 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A Checkpointer saves the weights and training state every checkpointInterval iterations or checkpointSeconds seconds,
+ * whichever comes first, without making training wait for the disk. It owns two snapshots, each big enough for every
+ * weight. At a checkpoint the training thread copies the weights into a free snapshot and hands it to a background writer
+ * thread, which writes it in the binary weights format and returns it. The copy is the only cost training pays. If both
+ * snapshots are still with the writer, that checkpoint is skipped rather than waited for.
+ *
+ * A checkpoint at path is a binary weights file that loadWeights and Model.load can also read, path.state holding the
+ * TrainingState, and, for an optimizer that keeps moments (running averages shaped like the weights), one more binary
+ * weights-format file per moment, path.m0, path.m1 and so on. Every file is written to a temporary file first and moved
+ * into place, with the state last, so a crash never leaves a half-written file behind. The state records the checksum of
+ * every other file, so a crash between the moves is caught when resuming.
+ *
+ * Table of Contents
+ *  • public Checkpointer(String path, int layers[], int moments, int interval, double seconds)
+ *  • public boolean due(int iterations)
+ *  • public Snapshot acquire()
+ *  • public Snapshot acquireWaiting()
+ *  • public void submit(Snapshot snapshot)
+ *  • public void writeLoop()
+ *  • public void write(Snapshot snapshot)
+ *  • public static void moveIntoPlace(String target)
+ *  • public void close()
+ *  • public static String statePath(String path)
+ *  • public static String momentPath(String path, int k)
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 18 May 2024
+ */
+public class Checkpointer
+{
+   static final int SNAPSHOTS = 2;
+   static final String STATE_SUFFIX = ".state";
+   static final String MOMENT_SUFFIX = ".m";
+   static final String TEMP_SUFFIX = ".tmp";
+   static final double NANOS_PER_SECOND = 1e9;
+
+   String path;
+   int layers[];
+   int interval;
+   long intervalNanos;
+   long lastTime;
+   int written;
+   int skipped;
+
+   ArrayBlockingQueue<Snapshot> free;
+   ArrayBlockingQueue<Snapshot> full;
+   Snapshot done;
+   Thread writer;
+   volatile IOException failure;
+
+/**
+ * A copy of the weights, optimizer moments and training state taken at one checkpoint
+ */
+   public static class Snapshot
+   {
+      double weights[][];
+      double moments[][][];
+      TrainingState state;
+
+/**
+ * Constructor for the Snapshot class that allocates room for every weight and moment
+ *
+ * @param layers   the number of neurons in every layer
+ * @param moments  the number of optimizer moments
+ */
+      Snapshot(int layers[], int moments)
+      {
+         int k;
+
+         weights = allocate(layers);
+         this.moments = new double[moments][][];
+         for (k = 0; k < moments; k++)
+         {
+            this.moments[k] = allocate(layers);
+         }
+
+         state = new TrainingState();
+         state.momentChecksums = new long[moments];
+      } // Snapshot(int layers[], int moments)
+
+/**
+ * Allocates an array laid out like NLayer's weights
+ *
+ * @param layers  the number of neurons in every layer
+ * @return        the array
+ */
+      static double[][] allocate(int layers[])
+      {
+         int alpha;
+         double a[][] = new double[layers.length - 1][];
+
+         for (alpha = 0; alpha < layers.length - 1; alpha++)
+         {
+            a[alpha] = new double[layers[alpha] * layers[alpha + 1]];
+         }
+         return a;
+      } // static double[][] allocate(int layers[])
+   } // public static class Snapshot
+
+/**
+ * Constructor for the Checkpointer class that allocates the snapshots and starts the writer thread
+ *
+ * @param path      the path of the checkpoint weights file
+ * @param layers    the number of neurons in every layer
+ * @param moments   the number of optimizer moments to save with the weights
+ * @param interval  the number of iterations between checkpoints, or 0 for none
+ * @param seconds   the number of seconds between checkpoints, or 0 for none
+ */
+   public Checkpointer(String path, int layers[], int moments, int interval, double seconds)
+   {
+      int snapshot;
+
+      this.path = path;
+      this.layers = layers;
+      this.interval = interval;
+      intervalNanos = (long) (seconds * NANOS_PER_SECOND);
+
+      free = new ArrayBlockingQueue<Snapshot>(SNAPSHOTS);
+      full = new ArrayBlockingQueue<Snapshot>(SNAPSHOTS + 1);
+      for (snapshot = 0; snapshot < SNAPSHOTS; snapshot++)
+      {
+         free.add(new Snapshot(layers, moments));
+      }
+      done = new Snapshot(new int[] {1, 0}, 0);
+
+      writer = new Thread(this::writeLoop, "NLayer checkpointer");
+      writer.setDaemon(true);
+      writer.start();
+
+      lastTime = System.nanoTime();
+   } // public Checkpointer(String path, int layers[], int moments, int interval, double seconds)
+
+/**
+ * Tells whether a checkpoint is due after the given iteration
+ *
+ * @param iterations  the number of iterations trained so far
+ * @return            true if the interval or the time since the last checkpoint has been reached
+ */
+   public boolean due(int iterations)
+   {
+      return (interval > 0 && iterations % interval == 0) ||
+             (intervalNanos > 0 && System.nanoTime() - lastTime >= intervalNanos);
+   }
+
+/**
+ * Gets a free snapshot to copy the weights into, without waiting
+ *
+ * @return  the snapshot, or null if the writer still has both (the checkpoint is then skipped)
+ */
+   public Snapshot acquire()
+   {
+      Snapshot snapshot = free.poll();
+
+      if (snapshot == null)
+      {
+         skipped++;
+         lastTime = System.nanoTime();
+      }
+      return snapshot;
+   } // public Snapshot acquire()
+
+/**
+ * Gets a free snapshot, waiting for the writer to return one if it has both, for the last checkpoint of a training run
+ *
+ * @return  the snapshot
+ */
+   public Snapshot acquireWaiting()
+   {
+      try
+      {
+         return free.take();
+      }
+      catch (InterruptedException e)
+      {
+         throw new RuntimeException(e);
+      }
+   } // public Snapshot acquireWaiting()
+
+/**
+ * Hands a filled snapshot to the writer
+ *
+ * @param snapshot  the snapshot, from acquire
+ */
+   public void submit(Snapshot snapshot)
+   {
+      full.add(snapshot);
+      lastTime = System.nanoTime();
+   }
+
+/**
+ * The writer thread's loop: writes every snapshot it is handed and returns it to the free snapshots, until close hands it
+ * the done marker. A failed write is kept for close to report, and later snapshots are still attempted.
+ */
+   public void writeLoop()
+   {
+      Snapshot snapshot;
+
+      try
+      {
+         while ((snapshot = full.take()) != done)
+         {
+            try
+            {
+               write(snapshot);
+               written++;
+            }
+            catch (IOException e)
+            {
+               failure = e;
+            }
+            free.add(snapshot);
+         } // while ((snapshot = full.take()) != done)
+      } // try
+      catch (InterruptedException e)
+      {
+         // close() gave up waiting
+      }
+   } // public void writeLoop()
+
+/**
+ * Writes one snapshot as a checkpoint, through temporary files that are moved into place
+ *
+ * @param snapshot  the snapshot to write
+ * @throws IOException may be thrown when either file cannot be written or moved
+ */
+   public void write(Snapshot snapshot) throws IOException
+   {
+      int k;
+      String state = statePath(path);
+
+      snapshot.state.weightsChecksum = WeightsFile.write(path + TEMP_SUFFIX, layers, snapshot.weights);
+      for (k = 0; k < snapshot.moments.length; k++)
+      {
+         snapshot.state.momentChecksums[k] = WeightsFile.write(momentPath(path, k) + TEMP_SUFFIX, layers, snapshot.moments[k]);
+      }
+      snapshot.state.write(state + TEMP_SUFFIX);
+
+      moveIntoPlace(path);
+      for (k = 0; k < snapshot.moments.length; k++)
+      {
+         moveIntoPlace(momentPath(path, k));
+      }
+      moveIntoPlace(state);
+   } // public void write(Snapshot snapshot) throws IOException
+
+/**
+ * Replaces a file with its finished temporary file in one step
+ *
+ * @param target  the path of the file
+ * @throws IOException may be thrown when the file cannot be moved
+ */
+   public static void moveIntoPlace(String target) throws IOException
+   {
+      Files.move(Paths.get(target + TEMP_SUFFIX), Paths.get(target), StandardCopyOption.REPLACE_EXISTING,
+                 StandardCopyOption.ATOMIC_MOVE);
+   }
+
+/**
+ * Waits for the writer to finish the snapshots it has been handed, then stops it
+ *
+ * @throws IOException may be thrown when any checkpoint failed to be written
+ */
+   public void close() throws IOException
+   {
+      full.add(done);
+
+      try
+      {
+         writer.join();
+      }
+      catch (InterruptedException e)
+      {
+         writer.interrupt();
+         Thread.currentThread().interrupt();
+      }
+
+      if (failure != null)
+         throw new IOException("Could not write checkpoint " + path + ": " + failure.getMessage(), failure);
+   } // public void close() throws IOException
+
+/**
+ * Gets the path of the state file that goes with a checkpoint
+ *
+ * @param path  the path of the checkpoint weights file
+ * @return      the path of its state file
+ */
+   public static String statePath(String path)
+   {
+      return path + STATE_SUFFIX;
+   }
+
+/**
+ * Gets the path of the file holding one optimizer moment of a checkpoint
+ *
+ * @param path  the path of the checkpoint weights file
+ * @param k     the index of the moment
+ * @return      the path of its moment file
+ */
+   public static String momentPath(String path, int k)
+   {
+      return path + MOMENT_SUFFIX + k;
+   }
+} // public class Checkpointer
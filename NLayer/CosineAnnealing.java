@@ -0,0 +1,68 @@
+/**
+ * Cosine annealing lowers the learning rate from lambda to minLambda along half a cosine wave over a period of
+ * iterations. With warm restarts the rate then jumps back to lambda and anneals again over a period periodGrowth times
+ * longer, which lets training leave a poor minimum and settle into a better one. Without restarts the period is the
+ * whole run and periodGrowth is 1.
+ *
+ * Table of Contents
+ *  • public CosineAnnealing(double lambda, double minLambda, int period, double periodGrowth)
+ *  • public double rate(int iteration)
+ *  • public String toString()
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 21 May 2024
+ */
+public class CosineAnnealing extends LearningRateSchedule
+{
+   double minLambda;
+   int period;
+   double periodGrowth;
+
+/**
+ * Constructor for the CosineAnnealing class
+ *
+ * @param lambda        the learning rate at the start of every period
+ * @param minLambda     the learning rate at the end of every period
+ * @param period        the number of iterations in the first period
+ * @param periodGrowth  the factor every period is longer than the one before
+ */
+   public CosineAnnealing(double lambda, double minLambda, int period, double periodGrowth)
+   {
+      super(lambda);
+      this.minLambda = minLambda;
+      this.period = Math.max(period, 1);
+      this.periodGrowth = periodGrowth;
+   }
+
+/**
+ * Gives the learning rate of an iteration, minLambda + (lambda - minLambda) * (1 + cos(pi * t / T)) / 2 where t is the
+ * number of iterations into the current period and T is its length
+ *
+ * @param iteration  the number of iterations finished before this one
+ * @return           the learning rate
+ */
+   public double rate(int iteration)
+   {
+      double t = iteration;
+      double length = period;
+
+      while (t >= length)
+      {
+         t -= length;
+         length = (periodGrowth > 1.0) ? Math.ceil(length * periodGrowth) : length;
+      }
+      return minLambda + 0.5 * (lambda - minLambda) * (1.0 + Math.cos(Math.PI * t / length));
+   } // public double rate(int iteration)
+
+/**
+ * Describes the schedule for the configuration echo
+ *
+ * @return  the name and parameters of the schedule
+ */
+   public String toString()
+   {
+      return COSINE + " (down to " + minLambda + " over " + period + " iterations" +
+             (periodGrowth > 1.0 ? ", restarting with periods " + periodGrowth + " times longer)" : ")");
+   }
+} // public class CosineAnnealing extends LearningRateSchedule
@@ -0,0 +1,64 @@
+/**
+ * A DataSource hands the test cases of a dataset to the network one chunk at a time, so training and evaluation can walk
+ * an epoch without the whole dataset being held in memory. An epoch starts with rewind and ends when next returns null.
+ * A chunk is only valid until the following call to next or rewind, after which its arrays may be reused for another
+ * chunk.
+ *
+ * Table of Contents
+ *  • public abstract void rewind()
+ *  • public abstract Chunk next()
+ *  • public void close()
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 11 May 2024
+ */
+public abstract class DataSource
+{
+   int numberOfCases;
+   int inputs;
+   int outputs;
+
+/**
+ * A run of consecutive test cases. Row r of inputs and outputs belongs to test case first + r of the dataset, for every
+ * r below size; rows at or past size are unused.
+ */
+   public static class Chunk
+   {
+      double inputs[][];
+      double outputs[][];
+      int first;
+      int size;
+
+/**
+ * Constructor for the Chunk class that wraps existing rows
+ *
+ * @param inputs   the inputs of the test cases in the chunk
+ * @param outputs  the expected outputs of the test cases in the chunk
+ */
+      public Chunk(double inputs[][], double outputs[][])
+      {
+         this.inputs = inputs;
+         this.outputs = outputs;
+      }
+   } // public static class Chunk
+
+/**
+ * Starts a new epoch, so the next call to next returns the chunk that holds the first test case
+ */
+   public abstract void rewind();
+
+/**
+ * Gets the next chunk of the current epoch
+ *
+ * @return  the next chunk, or null once every test case of the epoch has been returned
+ */
+   public abstract Chunk next();
+
+/**
+ * Releases any files or threads held by the data source
+ */
+   public void close()
+   {
+   }
+} // public abstract class DataSource
@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The DatasetConverter turns existing truth tables into the binary dataset format read by DatasetFile, so NNParser can
+ * load them without parsing text. It converts either a whitespace-separated text truth table or a set of activation files
+ * written by BMP2Act (big-endian doubles, one file per image, as in ImageStuff/test_activations).
+ *
+ * Usage: java DatasetConverter text <truthTable> <cases> <inputs> <outputs> <dtype> <outFile>
+ *        java DatasetConverter images <targets> <dtype> <outFile> <activations1.bin> <activations2.bin> ...
+ *
+ * dtype is UINT8, FLOAT or DOUBLE and sets how the inputs of both kinds are stored. FLOAT and DOUBLE store the values as
+ * they are. With UINT8, the inputs of a text truth table are stored as luminances in [0, 1], which keeps the values of a
+ * table of zeros and ones exactly, and activation files are stored as grayscale pels, which reproduces BMP2Act's values
+ * exactly. For images, targets is either a text file holding one row of expected outputs per image, in the same order as
+ * the activation files, or AUTOENCODER to use every image as its own expected output.
+ *
+ * Table of Contents
+ *  • public static void convertText(String args[])
+ *  • public static void convertImages(String args[])
+ *  • public static double[] readActivations(String path)
+ *  • public static double[][] readTargets(String path, int cases)
+ *  • public static void main(String args[])
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 10 May 2024
+ */
+public class DatasetConverter
+{
+   static final String AUTOENCODER = "AUTOENCODER";
+   static final int IMAGE_FILES_START = 4;
+   static final int DOUBLE_BYTES = 8;
+
+/**
+ * Converts a text truth table into a binary dataset
+ *
+ * @param args  text, the truth table, the number of cases, inputs and outputs, the dtype and the output file
+ * @throws IOException may be thrown when either file cannot be read or written
+ */
+   public static void convertText(String args[]) throws IOException
+   {
+      int cases = Integer.parseInt(args[2]);
+      double testCases[][] = new double[cases][Integer.parseInt(args[3])];
+      double trueOutputs[][] = new double[cases][Integer.parseInt(args[4])];
+
+      DatasetFile.readText(args[1], testCases, trueOutputs);
+      DatasetFile.write(args[6], DatasetFile.dtypeOf(args[5]), 1, testCases, trueOutputs);
+   } // public static void convertText(String args[])
+
+/**
+ * Converts a set of BMP2Act activation files into a binary dataset
+ *
+ * @param args  images, the targets, the dtype, the output file and then every activation file
+ * @throws IOException may be thrown when any file cannot be read or written
+ */
+   public static void convertImages(String args[]) throws IOException
+   {
+      int cases = args.length - IMAGE_FILES_START;
+      int testCase;
+      double testCases[][] = new double[cases][];
+      double trueOutputs[][];
+
+      for (testCase = 0; testCase < cases; testCase++)
+      {
+         testCases[testCase] = readActivations(args[IMAGE_FILES_START + testCase]);
+
+         if (testCases[testCase].length != testCases[0].length)
+            throw new IOException(args[IMAGE_FILES_START + testCase] + " does not have " + testCases[0].length + " pels");
+      }
+
+      if (args[1].equals(AUTOENCODER))
+      {
+         trueOutputs = testCases;
+      }
+      else
+      {
+         trueOutputs = readTargets(args[1], cases);
+      }
+
+      DatasetFile.write(args[3], DatasetFile.dtypeOf(args[2]), DatasetFile.GRAY_PEL_SCALE, testCases, trueOutputs);
+   } // public static void convertImages(String args[])
+
+/**
+ * Reads every activation in a file written by BMP2Act
+ *
+ * @param path  the path to the activation file
+ * @return      the activations in the file
+ * @throws IOException may be thrown when the file cannot be read
+ */
+   public static double[] readActivations(String path) throws IOException
+   {
+      double activations[];
+      ByteBuffer bytes;
+
+      try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ))
+      {
+         bytes = ByteBuffer.allocate((int) channel.size());
+         while (bytes.hasRemaining() && channel.read(bytes) >= 0);
+      }
+      bytes.flip();
+
+      activations = new double[bytes.remaining() / DOUBLE_BYTES];
+      bytes.asDoubleBuffer().get(activations);
+      return activations;
+   } // public static double[] readActivations(String path)
+
+/**
+ * Reads the expected outputs of every image from a text file with one whitespace-separated row per image
+ *
+ * @param path   the path to the targets file
+ * @param cases  the number of images
+ * @return       the expected outputs of every image
+ * @throws IOException may be thrown when the file cannot be read or has too few rows
+ */
+   public static double[][] readTargets(String path, int cases) throws IOException
+   {
+      int testCase, i;
+      String row[];
+      double targets[][] = new double[cases][];
+      List<String> lines = Files.readAllLines(Paths.get(path));
+
+      lines.removeIf(line -> line.isBlank());
+      if (lines.size() < cases)
+         throw new IOException(path + " has fewer than " + cases + " rows of targets");
+
+      for (testCase = 0; testCase < cases; testCase++)
+      {
+         row = lines.get(testCase).trim().split("\\s+");
+         targets[testCase] = new double[row.length];
+
+         for (i = 0; i < row.length; i++)
+         {
+            targets[testCase][i] = Double.parseDouble(row[i]);
+         }
+
+         if (targets[testCase].length != targets[0].length)
+            throw new IOException(path + " does not have " + targets[0].length + " targets in row " + testCase);
+      } // for (testCase = 0; testCase < cases; testCase++)
+      return targets;
+   } // public static double[][] readTargets(String path, int cases)
+
+/**
+ * Converts the truth table named on the command line
+ *
+ * @param args  the conversion mode followed by its arguments, as shown in the usage above
+ * @throws IOException may be thrown when any file cannot be read or written
+ */
+   public static void main(String args[]) throws IOException
+   {
+      if (args.length >= 7 && args[0].equals("text"))
+      {
+         convertText(args);
+      }
+      else if (args.length > IMAGE_FILES_START && args[0].equals("images"))
+      {
+         convertImages(args);
+      }
+      else
+      {
+         System.out.println("Usage: java DatasetConverter text <truthTable> <cases> <inputs> <outputs> <dtype> <outFile>");
+         System.out.println("       java DatasetConverter images <targets> <dtype> <outFile> <activations.bin> ...");
+      }
+   } // public static void main(String args[])
+} // public class DatasetConverter
@@ -0,0 +1,421 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * DatasetFile reads and writes truth tables, both the whitespace-separated text tables and the binary dataset format.
+ * Every value of the binary format is little-endian:
+ *
+ *    int   magic    0x4E4E4453 ("NNDS")
+ *    int   version  1
+ *    int   dtype    1 for uint8 inputs, 4 for float32 inputs, 8 for float64 inputs
+ *    int   cases    the number of test cases
+ *    int   inputs   the number of inputs of every test case
+ *    int   outputs  the number of expected outputs of every test case
+ *    int   pelScale what a uint8 input is multiplied by before it is divided by 255, 1 for the other dtypes
+ *    inputs block   cases rows of inputs values each, packed in the dtype
+ *    outputs block  cases rows of outputs float64 values each
+ *
+ * A uint8 input b stands for b * pelScale / 255.0. BMP2Act writes every activation as pel / 255.0, where the grayscale pel
+ * repeats the 8-bit luminance in its red, green and blue bytes, so with pelScale = 0x010101 an image dataset takes an eighth
+ * of the space without losing anything. With pelScale = 1 the uint8 inputs are luminances in [0, 1]. The expected outputs
+ * are always stored as float64.
+ * Binary files are read whole rows at a time into a direct buffer with positional reads, and every row is copied into
+ * the test case arrays with one bulk get, instead of parsing one number of text per value. readRows reads any run of test
+ * cases, which is how the StreamingDataSource reads a dataset one chunk at a time. The caller owns the buffer and reuses
+ * it for every run it reads; memory-mapping each run instead would leave one mapping per chunk behind until the garbage
+ * collector happened to free it, and a long streamed training run allocates too little for that ever to happen.
+ *
+ * Table of Contents
+ *  • public static boolean isBinary(String path)
+ *  • public static void readText(String path, double testCases[][], double trueOutputs[][])
+ *  • public static void read(String path, double testCases[][], double trueOutputs[][])
+ *  • public static void write(String path, int dtype, int pelScale, double testCases[][], double trueOutputs[][])
+ *  • public static void readRows(FileChannel channel, ByteBuffer header, int first, int count, double inputs[][],
+ *                              double outputs[][], ByteBuffer buffer)
+ *  • public static ByteBuffer rowBuffer(ByteBuffer header, int count)
+ *  • public static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+ *  • public static ByteBuffer readHeader(FileChannel channel, String path, int cases, int inputs, int outputs)
+ *  • public static long rowBytes(ByteBuffer header)
+ *  • public static int dtypeOf(String name)
+ *  • public static void writeAll(FileChannel channel, ByteBuffer chunk)
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 10 May 2024
+ */
+public class DatasetFile
+{
+   static final int MAGIC = 0x4E4E4453;
+   static final int VERSION = 1;
+   static final int DTYPE_UINT8 = 1;
+   static final int DTYPE_FLOAT32 = 4;
+   static final int DTYPE_FLOAT64 = 8;
+
+   static final int INT_BYTES = 4;
+   static final int HEADER_INTS = 7;
+   static final int HEADER_BYTES = INT_BYTES * HEADER_INTS;
+   static final int DTYPE_OFFSET = 8;
+   static final int CASES_OFFSET = 12;
+   static final int INPUTS_OFFSET = 16;
+   static final int OUTPUTS_OFFSET = 20;
+   static final int PEL_SCALE_OFFSET = 24;
+   static final double UINT8_MAX = 255.0;
+   static final int GRAY_PEL_SCALE = 0x010101;
+
+   static final int CHUNK_BYTES = 1 << 20;
+
+/**
+ * Tells whether a file starts with the binary dataset magic number
+ *
+ * @param path  the path to the truth table
+ * @return      true if the file is in the binary format
+ * @throws IOException may be thrown when the file cannot be read
+ */
+   public static boolean isBinary(String path) throws IOException
+   {
+      ByteBuffer magic = ByteBuffer.allocate(INT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+      try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ))
+      {
+         while (magic.hasRemaining() && channel.read(magic) >= 0);
+      }
+      return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+   } // public static boolean isBinary(String path)
+
+/**
+ * Reads a whitespace-separated truth table, where every test case is its inputs followed by its expected outputs
+ *
+ * @param path         the path to the truth table
+ * @param testCases    the inputs of every test case, filled in
+ * @param trueOutputs  the expected outputs of every test case, filled in
+ * @throws FileNotFoundException may be thrown when the truth table does not exist
+ */
+   public static void readText(String path, double testCases[][], double trueOutputs[][]) throws FileNotFoundException
+   {
+      int testCase, k, i;
+      Scanner sc = new Scanner(new File(path));
+
+      for (testCase = 0; testCase < testCases.length; testCase++)
+      {
+         for (k = 0; k < testCases[testCase].length; k++)
+         {
+            testCases[testCase][k] = sc.nextDouble();
+         }
+
+         for (i = 0; i < trueOutputs[testCase].length; i++)
+         {
+            trueOutputs[testCase][i] = sc.nextDouble();
+         }
+
+         if (sc.hasNextLine())
+            sc.nextLine();
+      } // for (testCase = 0; testCase < testCases.length; testCase++)
+
+      sc.close();
+   } // public static void readText(String path, double testCases[][], double trueOutputs[][])
+
+/**
+ * Reads a binary dataset into the test case arrays, whose sizes must match the header of the file
+ *
+ * @param path         the path to the truth table
+ * @param testCases    the inputs of every test case, filled in
+ * @param trueOutputs  the expected outputs of every test case, filled in
+ * @throws IOException may be thrown when the file cannot be read or does not match the arrays
+ */
+   public static void read(String path, double testCases[][], double trueOutputs[][]) throws IOException
+   {
+      int cases = testCases.length;
+      int inputs = cases > 0 ? testCases[0].length : 0;
+      int outputs = cases > 0 ? trueOutputs[0].length : 0;
+      int first, count, step;
+      ByteBuffer header, buffer;
+
+      try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ))
+      {
+         header = readHeader(channel, path, cases, inputs, outputs);
+         step = (int) Math.max(1L, CHUNK_BYTES / Math.max(1L, rowBytes(header)));
+         buffer = rowBuffer(header, Math.min(cases, step));
+
+         for (first = 0; first < cases; first += count)
+         {
+            count = Math.min(cases - first, step);
+            readRows(channel, header, first, count, Arrays.copyOfRange(testCases, first, first + count),
+                     Arrays.copyOfRange(trueOutputs, first, first + count), buffer);
+         }
+      } // try (FileChannel channel = ...)
+   } // public static void read(String path, double testCases[][], double trueOutputs[][])
+
+/**
+ * Reads count test cases of a binary dataset, starting at first, into the first count rows of the given arrays. The
+ * inputs and then the expected outputs of those test cases are each read into the buffer with positional reads and
+ * copied out row by row, so reading never moves the channel's position and allocates nothing.
+ *
+ * @param channel   the open dataset
+ * @param header    the header of the dataset, as returned by readHeader
+ * @param first     the index in the file of the first test case to read
+ * @param count     the number of test cases to read
+ * @param inputs    the rows that receive the inputs
+ * @param outputs   the rows that receive the expected outputs
+ * @param buffer    a buffer from rowBuffer for at least count test cases, reused for every call
+ * @throws IOException may be thrown when the file cannot be read
+ */
+   public static void readRows(FileChannel channel, ByteBuffer header, int first, int count, double inputs[][],
+                               double outputs[][], ByteBuffer buffer) throws IOException
+   {
+      int dtype = header.getInt(DTYPE_OFFSET);
+      int pelScale = header.getInt(PEL_SCALE_OFFSET);
+      int width = header.getInt(INPUTS_OFFSET);
+      long inputsBytes = (long) width * dtype;
+      long outputsBytes = (long) header.getInt(OUTPUTS_OFFSET) * DTYPE_FLOAT64;
+      long outputsStart = HEADER_BYTES + header.getInt(CASES_OFFSET) * inputsBytes;
+      int r, k;
+      byte row8[];
+      FloatBuffer floats;
+      DoubleBuffer doubles;
+
+      buffer.clear().limit((int) (count * inputsBytes));
+      readFully(channel, buffer, HEADER_BYTES + first * inputsBytes);
+
+      if (dtype == DTYPE_FLOAT64)
+      {
+         doubles = buffer.asDoubleBuffer();
+         for (r = 0; r < count; r++)
+         {
+            doubles.get(inputs[r]);
+         }
+      }
+      else if (dtype == DTYPE_FLOAT32)
+      {
+         floats = buffer.asFloatBuffer();
+         for (r = 0; r < count; r++)
+         {
+            for (k = 0; k < width; k++)
+            {
+               inputs[r][k] = floats.get();
+            }
+         }
+      }
+      else
+      {
+         row8 = new byte[width];
+         for (r = 0; r < count; r++)
+         {
+            buffer.get(row8);
+            for (k = 0; k < width; k++)
+            {
+               inputs[r][k] = ((row8[k] & 0xFF) * pelScale) / UINT8_MAX;
+            }
+         }
+      } // if (dtype == DTYPE_FLOAT64)...else if (dtype == DTYPE_FLOAT32)...else
+
+      buffer.clear().limit((int) (count * outputsBytes));
+      readFully(channel, buffer, outputsStart + first * outputsBytes);
+      doubles = buffer.asDoubleBuffer();
+      for (r = 0; r < count; r++)
+      {
+         doubles.get(outputs[r]);
+      }
+   } // public static void readRows(FileChannel channel, ByteBuffer header, int first, int count, ...)
+
+/**
+ * Allocates a buffer that readRows can read count test cases of a dataset through, holding either their inputs or their
+ * expected outputs
+ *
+ * @param header  the header of the dataset, as returned by readHeader
+ * @param count   the largest number of test cases read at once
+ * @return        the little-endian direct buffer
+ */
+   public static ByteBuffer rowBuffer(ByteBuffer header, int count)
+   {
+      long inputsBytes = (long) header.getInt(INPUTS_OFFSET) * header.getInt(DTYPE_OFFSET);
+      long outputsBytes = (long) header.getInt(OUTPUTS_OFFSET) * DTYPE_FLOAT64;
+
+      return ByteBuffer.allocateDirect((int) (count * Math.max(inputsBytes, outputsBytes)))
+                       .order(ByteOrder.LITTLE_ENDIAN);
+   } // public static ByteBuffer rowBuffer(ByteBuffer header, int count)
+
+/**
+ * Fills a buffer, from its position to its limit, with the bytes of the file starting at position, then flips it so the
+ * bytes can be read
+ *
+ * @param channel   the open dataset
+ * @param buffer    the buffer to fill
+ * @param position  the offset in the file of the first byte
+ * @throws IOException may be thrown when the file cannot be read or ends too soon
+ */
+   public static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+   {
+      int start = buffer.position();
+
+      while (buffer.hasRemaining())
+      {
+         if (channel.read(buffer, position + buffer.position() - start) < 0)
+            throw new IOException("The dataset ended before the rows being read");
+      }
+      buffer.flip();
+   } // public static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+
+/**
+ * Writes the test case arrays as a binary dataset. A uint8 input is rounded to the nearest b * pelScale / 255 with b in
+ * [0, 255].
+ *
+ * @param path         the path to the binary dataset
+ * @param dtype        DTYPE_UINT8, DTYPE_FLOAT32 or DTYPE_FLOAT64, the type of the stored inputs
+ * @param pelScale     1 for inputs in [0, 1] or GRAY_PEL_SCALE for BMP2Act activations, only used for DTYPE_UINT8
+ * @param testCases    the inputs of every test case
+ * @param trueOutputs  the expected outputs of every test case
+ * @throws IOException may be thrown when writing to the file fails
+ */
+   public static void write(String path, int dtype, int pelScale, double testCases[][], double trueOutputs[][])
+      throws IOException
+   {
+      int cases = testCases.length;
+      int inputs = cases > 0 ? testCases[0].length : 0;
+      int outputs = cases > 0 ? trueOutputs[0].length : 0;
+      int testCase, k;
+      double value;
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+      if (dtype != DTYPE_UINT8 && dtype != DTYPE_FLOAT32 && dtype != DTYPE_FLOAT64)
+         throw new IllegalArgumentException("Unknown dataset dtype " + dtype);
+
+      try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                  StandardOpenOption.TRUNCATE_EXISTING))
+      {
+         header.putInt(MAGIC).putInt(VERSION).putInt(dtype).putInt(cases).putInt(inputs).putInt(outputs);
+         header.putInt(dtype == DTYPE_UINT8 ? pelScale : 1);
+         writeAll(channel, header);
+
+         for (testCase = 0; testCase < cases; testCase++)
+         {
+            for (k = 0; k < inputs; k++)
+            {
+               if (chunk.remaining() < dtype)
+                  writeAll(channel, chunk);
+
+               value = testCases[testCase][k];
+               if (dtype == DTYPE_FLOAT64)
+                  chunk.putDouble(value);
+               else if (dtype == DTYPE_FLOAT32)
+                  chunk.putFloat((float) value);
+               else
+                  chunk.put((byte) Math.round(Math.max(0.0, Math.min(UINT8_MAX, value * UINT8_MAX / pelScale))));
+            } // for (k = 0; k < inputs; k++)
+         } // for (testCase = 0; testCase < cases; testCase++)
+
+         for (testCase = 0; testCase < cases; testCase++)
+         {
+            for (k = 0; k < outputs; k++)
+            {
+               if (chunk.remaining() < DTYPE_FLOAT64)
+                  writeAll(channel, chunk);
+
+               chunk.putDouble(trueOutputs[testCase][k]);
+            }
+         } // for (testCase = 0; testCase < cases; testCase++)
+
+         writeAll(channel, chunk);
+      } // try (FileChannel channel = ...)
+   } // public static void write(String path, int dtype, int pelScale, double testCases[][], double trueOutputs[][])
+
+/**
+ * Reads and checks the header of a binary dataset
+ *
+ * @param channel  the open dataset
+ * @param path     the path to the dataset, for error messages
+ * @param cases    the number of test cases the network expects
+ * @param inputs   the number of inputs the network expects
+ * @param outputs  the number of outputs the network expects
+ * @return         the header, whose fields are read with the *_OFFSET constants
+ * @throws IOException may be thrown when the file cannot be read or does not match the network
+ */
+   public static ByteBuffer readHeader(FileChannel channel, String path, int cases, int inputs, int outputs)
+      throws IOException
+   {
+      int dtype;
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+      while (header.hasRemaining() && channel.read(header, header.position()) >= 0);
+      header.flip();
+
+      if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC)
+         throw new IOException(path + " is not a binary dataset");
+
+      if (header.getInt() != VERSION)
+         throw new IOException(path + " has an unsupported binary dataset version");
+
+      dtype = header.getInt();
+      if (dtype != DTYPE_UINT8 && dtype != DTYPE_FLOAT32 && dtype != DTYPE_FLOAT64)
+         throw new IOException(path + " has an unknown dtype " + dtype);
+
+      if (header.getInt() != cases || header.getInt() != inputs || header.getInt() != outputs)
+         throw new IOException(path + " does not have " + cases + " test cases with " + inputs + " inputs and " + outputs +
+                               " outputs");
+
+      if (channel.size() != HEADER_BYTES + cases * rowBytes(header))
+         throw new IOException(path + " is truncated");
+
+      return header;
+   } // public static ByteBuffer readHeader(FileChannel channel, String path, int cases, int inputs, int outputs)
+
+/**
+ * Finds the number of bytes one test case takes in a binary dataset, counting its inputs and its expected outputs
+ *
+ * @param header  the header of the dataset
+ * @return        the size of one test case in bytes
+ */
+   public static long rowBytes(ByteBuffer header)
+   {
+      return (long) header.getInt(INPUTS_OFFSET) * header.getInt(DTYPE_OFFSET) +
+             (long) header.getInt(OUTPUTS_OFFSET) * DTYPE_FLOAT64;
+   }
+
+/**
+ * Turns the name of a dtype, as written on the command line, into its code
+ *
+ * @param name  UINT8, FLOAT or DOUBLE
+ * @return      the matching dtype
+ */
+   public static int dtypeOf(String name)
+   {
+      if (name.equals("UINT8"))
+         return DTYPE_UINT8;
+
+      if (name.equals("FLOAT"))
+         return DTYPE_FLOAT32;
+
+      if (name.equals("DOUBLE"))
+         return DTYPE_FLOAT64;
+
+      throw new IllegalArgumentException("Unknown dataset dtype " + name + ", expected UINT8, FLOAT or DOUBLE");
+   } // public static int dtypeOf(String name)
+
+/**
+ * Writes the bytes in a buffer to the file and clears the buffer for reuse
+ *
+ * @param channel  the open dataset
+ * @param chunk    the bytes to write, from 0 to position
+ * @throws IOException may be thrown when writing to the file fails
+ */
+   public static void writeAll(FileChannel channel, ByteBuffer chunk) throws IOException
+   {
+      chunk.flip();
+
+      while (chunk.hasRemaining())
+      {
+         channel.write(chunk);
+      }
+      chunk.clear();
+   } // public static void writeAll(FileChannel channel, ByteBuffer chunk)
+} // public class DatasetFile
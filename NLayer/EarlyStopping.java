@@ -0,0 +1,97 @@
+/**
+ * EarlyStopping watches the error on test cases held out of training and stops training once it has stopped improving,
+ * which is long before the training error reaches a small errorThreshold on data the network can memorize. Every
+ * interval iterations the network's validation error is compared with the best so far. A better one is recorded along
+ * with a copy of the weights that gave it; after patience evaluations in a row without a better one, training stops and
+ * the best weights are restored.
+ *
+ * The best weights are kept in a Checkpointer.Snapshot allocated once at the start, so recording them is a plain array
+ * copy. They are not part of a checkpoint, so a resumed run starts looking for the best weights afresh.
+ *
+ * Table of Contents
+ *  • public EarlyStopping(int layers[], int moments, int interval, int patience)
+ *  • public boolean due(int iterations)
+ *  • public boolean improved(int iterations, double error)
+ *  • public boolean shouldStop()
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 22 May 2024
+ */
+public class EarlyStopping
+{
+   int interval;
+   int patience;
+
+   double bestError;
+   int bestIteration;
+   int sinceBest;
+   double lastError;
+   boolean stopped;
+
+   Checkpointer.Snapshot best;
+
+/**
+ * Constructor for the EarlyStopping class that allocates the snapshot of the best weights
+ *
+ * @param layers    the number of neurons in every layer
+ * @param moments   the number of optimizer moments
+ * @param interval  the number of iterations between validation passes
+ * @param patience  the number of validation passes without improvement after which training stops
+ */
+   public EarlyStopping(int layers[], int moments, int interval, int patience)
+   {
+      this.interval = Math.max(interval, 1);
+      this.patience = Math.max(patience, 1);
+      bestError = Double.MAX_VALUE;
+      lastError = Double.MAX_VALUE;
+      best = new Checkpointer.Snapshot(layers, moments);
+   }
+
+/**
+ * Tells whether the validation error should be found after the given iteration
+ *
+ * @param iterations  the number of iterations trained so far
+ * @return            true every interval iterations
+ */
+   public boolean due(int iterations)
+   {
+      return iterations % interval == 0;
+   }
+
+/**
+ * Records the validation error of the current weights. The caller copies the weights into the best snapshot when they
+ * are the best so far.
+ *
+ * @param iterations  the number of iterations trained so far
+ * @param error       the average error over the held-out test cases
+ * @return            true if the error is the lowest so far
+ */
+   public boolean improved(int iterations, double error)
+   {
+      boolean better = error < bestError;
+
+      lastError = error;
+      if (better)
+      {
+         bestError = error;
+         bestIteration = iterations;
+         sinceBest = 0;
+      }
+      else
+      {
+         sinceBest++;
+      }
+      return better;
+   } // public boolean improved(int iterations, double error)
+
+/**
+ * Tells whether the validation error has gone patience passes without improving
+ *
+ * @return  true if training should stop
+ */
+   public boolean shouldStop()
+   {
+      return sinceBest >= patience;
+   }
+} // public class EarlyStopping
@@ -0,0 +1,53 @@
+/**
+ * Exponential decay shrinks the learning rate a little every iteration, by the same factor overall as a StepDecay with
+ * the same decay and step but without the jumps: lambda * decay^(iteration / step).
+ *
+ * Table of Contents
+ *  • public ExponentialDecay(double lambda, double decay, int step)
+ *  • public double rate(int iteration)
+ *  • public String toString()
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 21 May 2024
+ */
+public class ExponentialDecay extends LearningRateSchedule
+{
+   double decay;
+   int step;
+
+/**
+ * Constructor for the ExponentialDecay class
+ *
+ * @param lambda  the learning rate of the first iteration
+ * @param decay   the factor the rate is multiplied by over every step iterations
+ * @param step    the number of iterations over which the rate is multiplied by decay, at least 1
+ */
+   public ExponentialDecay(double lambda, double decay, int step)
+   {
+      super(lambda);
+      this.decay = decay;
+      this.step = Math.max(step, 1);
+   }
+
+/**
+ * Gives the learning rate of an iteration
+ *
+ * @param iteration  the number of iterations finished before this one
+ * @return           the learning rate
+ */
+   public double rate(int iteration)
+   {
+      return lambda * Math.pow(decay, ((double) iteration) / step);
+   }
+
+/**
+ * Describes the schedule for the configuration echo
+ *
+ * @return  the name and parameters of the schedule
+ */
+   public String toString()
+   {
+      return EXPONENTIAL + " (times " + decay + " every " + step + " iterations)";
+   }
+} // public class ExponentialDecay extends LearningRateSchedule
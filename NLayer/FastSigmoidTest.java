@@ -0,0 +1,82 @@
+/**
+ * Checks the FastSigmoid at the edges of its table, where an off-by-one index or a missed NaN would otherwise only show
+ * up deep inside a training run. Every x is compared with the exact Sigmoid: inside the table the two must agree to the
+ * interpolation error, past its ends to the value of the sigmoid at the end of the table, and NaN must stay NaN. The bulk
+ * apply must give exactly what f gives.
+ * Run it with java FastSigmoidTest; it prints every case and exits with status 1 if any fails.
+ *
+ * Table of Contents
+ *  • public static void main(String args[])
+ *  • public static boolean check(double x)
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 23 May 2024
+ */
+public class FastSigmoidTest
+{
+   static final double TOLERANCE = 1.0e-8;
+
+   static final FastSigmoid FAST = new FastSigmoid();
+   static final Sigmoid EXACT = new Sigmoid();
+
+/**
+ * Checks the FastSigmoid at both ends of the table, just inside and just outside them, at infinity and at NaN
+ *
+ * @param args  not used
+ */
+   public static void main(String args[])
+   {
+      double r = FastSigmoid.RANGE;
+      double cases[] = {-r, r, Math.nextDown(-r), Math.nextUp(-r), Math.nextDown(r), Math.nextUp(r),
+                        Math.nextDown(r - 1.0 / FastSigmoid.STEPS_PER_UNIT), 0.0, -0.0,
+                        Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, -Double.MAX_VALUE, Double.MAX_VALUE,
+                        Double.NaN};
+      int k, failed = 0;
+
+      for (k = 0; k < cases.length; k++)
+      {
+         if (!check(cases[k]))
+            failed++;
+      }
+
+      System.out.println(failed == 0 ? "All " + cases.length + " cases passed" : failed + " case(s) failed");
+      if (failed != 0)
+         System.exit(1);
+   } // public static void main(String args[])
+
+/**
+ * Compares the FastSigmoid with the exact Sigmoid at one x and prints the result
+ *
+ * @param x  the theta value to check
+ * @return   true if f(x) is NaN exactly when x is, and otherwise within TOLERANCE of the sigmoid and equal to apply
+ */
+   public static boolean check(double x)
+   {
+      double fast, exact, bulk[] = {x};
+      boolean passed;
+      String result;
+
+      try
+      {
+         fast = FAST.f(x);
+         exact = EXACT.f(x);
+         FAST.apply(bulk, bulk, 0, 1);
+
+         if (Double.isNaN(x))
+            passed = Double.isNaN(fast) && Double.isNaN(bulk[0]);
+         else
+            passed = Math.abs(fast - exact) <= TOLERANCE && bulk[0] == fast;
+
+         result = "f = " + fast + ", sigmoid = " + exact;
+      }
+      catch (RuntimeException e)
+      {
+         passed = false;
+         result = e.toString();
+      }
+
+      System.out.println((passed ? "pass " : "FAIL ") + "x = " + x + ": " + result);
+      return passed;
+   } // public static boolean check(double x)
+} // public class FastSigmoidTest
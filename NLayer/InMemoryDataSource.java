@@ -0,0 +1,58 @@
+/**
+ * An InMemoryDataSource serves a dataset that is already held in arrays, such as a truth table read by NNParser. Every
+ * epoch is a single chunk that covers the whole dataset, so the network sees the same test case indices as it would by
+ * walking the arrays directly. The arrays are shared, not copied, and are treated as read-only: nothing that reads a
+ * chunk may write to it.
+ *
+ * Table of Contents
+ *  • public InMemoryDataSource(double testCases[][], double trueOutputs[][])
+ *  • public void rewind()
+ *  • public Chunk next()
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 11 May 2024
+ */
+public class InMemoryDataSource extends DataSource
+{
+   Chunk all;
+   boolean served;
+
+/**
+ * Constructor for the InMemoryDataSource class
+ *
+ * @param testCases    the inputs of every test case
+ * @param trueOutputs  the expected outputs of every test case
+ */
+   public InMemoryDataSource(double testCases[][], double trueOutputs[][])
+   {
+      numberOfCases = testCases.length;
+      inputs = numberOfCases > 0 ? testCases[0].length : 0;
+      outputs = numberOfCases > 0 ? trueOutputs[0].length : 0;
+
+      all = new Chunk(testCases, trueOutputs);
+      all.size = numberOfCases;
+   } // public InMemoryDataSource(double testCases[][], double trueOutputs[][])
+
+/**
+ * Starts a new epoch
+ */
+   public void rewind()
+   {
+      served = false;
+   }
+
+/**
+ * Gets the whole dataset the first time it is called in an epoch
+ *
+ * @return  the chunk holding every test case, or null if it was already returned this epoch
+ */
+   public Chunk next()
+   {
+      if (served)
+         return null;
+
+      served = true;
+      return all;
+   } // public Chunk next()
+} // public class InMemoryDataSource extends DataSource
@@ -0,0 +1,56 @@
+/**
+ * An InferenceContext holds the scratch activations of one forward pass through a Model. A context may be reused for any
+ * number of predictions but by only one thread at a time; the Model keeps one per thread for predict(in, out). For batch
+ * predictions it also holds a block of rows per layer, laid out row after row as the gemm kernels expect; the blocks are
+ * only allocated the first time a batch is run, since a context that only serves single predictions never needs them.
+ * 
+ * Table of Contents
+ *  • public InferenceContext(int layers[])
+ *  • public void allocateBlocks(int rows)
+ * 
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 14 May 2024
+ */
+public class InferenceContext
+{
+   int layers[];
+   double activations[][];
+   double blocks[][];
+
+/**
+ * Constructor for the InferenceContext class that allocates the activations of every layer
+ * 
+ * @param layers  the number of neurons in every layer
+ */
+   public InferenceContext(int layers[])
+   {
+      int alpha;
+
+      this.layers = layers;
+      activations = new double[layers.length][];
+      for (alpha = 0; alpha < layers.length; alpha++)
+      {
+         activations[alpha] = new double[layers[alpha]];
+      }
+   } // public InferenceContext(int layers[])
+
+/**
+ * Allocates the batch blocks if they have not been allocated yet
+ * 
+ * @param rows  the number of rows in a block
+ */
+   public void allocateBlocks(int rows)
+   {
+      int alpha;
+
+      if (blocks != null)
+         return;
+
+      blocks = new double[layers.length][];
+      for (alpha = 0; alpha < layers.length; alpha++)
+      {
+         blocks[alpha] = new double[rows * layers[alpha]];
+      }
+   } // public void allocateBlocks(int rows)
+} // public class InferenceContext
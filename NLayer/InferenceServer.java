@@ -0,0 +1,466 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The InferenceServer loads a Model once and serves predictions over HTTP on the loopback interface, so other processes
+ * on the machine can use the network without starting a new JVM and re-reading the configuration and weights each time.
+ *
+ * Usage: java InferenceServer <configFile> [port] [maxBatch] [maxDelayMicros]
+ *
+ * POST /predict takes one input per line, as whitespace-separated numbers, and answers with one line of outputs per input.
+ * GET /stats answers with the number of predictions and batches, the throughput and the p50 and p99 latencies.
+ *
+ * Requests are handled on virtual threads when the JVM has them (Java 21 and later) and on a fixed pool otherwise. Each
+ * handler puts its inputs on a queue and waits. A single batcher thread takes the first waiting input, then keeps taking
+ * inputs until it has maxBatch of them or maxDelayMicros have passed since the first one arrived, and runs them all with
+ * one call to Model.predictBatch. A lone request therefore waits at most maxDelayMicros longer than it would on its own,
+ * while a burst of concurrent requests shares the cost of loading every weight row.
+ *
+ * If running a batch throws, for example an OutOfMemoryError while allocating its blocks, the failure is recorded on every
+ * input of that batch, their handlers answer 500, and the batcher goes on with the next batch. Every handler is woken
+ * whether its batch ran or not.
+ *
+ * Table of Contents
+ *  • public InferenceServer(Model model, int port, int maxBatch, long maxDelayMicros)
+ *  • public static ExecutorService createExecutor()
+ *  • public void start()
+ *  • public void stop()
+ *  • public void runBatches()
+ *  • public void handlePredict(HttpExchange exchange)
+ *  • public void handleStats(HttpExchange exchange)
+ *  • public void recordLatency(long nanos)
+ *  • public String stats()
+ *  • public static void respond(HttpExchange exchange, int status, String body)
+ *  • public static void main(String args[])
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 15 May 2024
+ */
+public class InferenceServer
+{
+   static final int DEFAULT_PORT = 8089;
+   static final int DEFAULT_MAX_BATCH = 64;
+   static final long DEFAULT_MAX_DELAY_MICROS = 500;
+   static final int LATENCY_SAMPLES = 1 << 16;
+   static final int FALLBACK_THREADS_PER_CORE = 4;
+   static final int STOP_DELAY_SECONDS = 1;
+   static final int HTTP_OK = 200;
+   static final int HTTP_BAD_REQUEST = 400;
+   static final int HTTP_BAD_METHOD = 405;
+   static final int HTTP_SERVER_ERROR = 500;
+   static final double NANOS_PER_MILLI = 1e6;
+   static final double NANOS_PER_SECOND = 1e9;
+
+   Model model;
+   int port;
+   int maxBatch;
+   long maxDelayNanos;
+
+   HttpServer server;
+   ExecutorService executor;
+   Thread batcher;
+   LinkedBlockingQueue<Pending> queue;
+
+   Pending batch[];
+   double batchIn[][];
+   double batchOut[][];
+
+   long latencies[];
+   long predictions;
+   long batches;
+   long startTime;
+
+/**
+ * One input waiting to be run, along with the array its outputs go into, the latch its handler waits on and, if its
+ * batch could not be run, what went wrong
+ */
+   static class Pending
+   {
+      double in[];
+      double out[];
+      long arrival;
+      CountDownLatch done;
+      Throwable failure;
+
+/**
+ * Constructor for the Pending class
+ *
+ * @param in       the inputs
+ * @param outputs  the number of outputs
+ */
+      Pending(double in[], int outputs)
+      {
+         this.in = in;
+         out = new double[outputs];
+         arrival = System.nanoTime();
+         done = new CountDownLatch(1);
+      }
+   } // static class Pending
+
+/**
+ * Constructor for the InferenceServer class
+ *
+ * @param model           the model to serve
+ * @param port            the loopback port to listen on
+ * @param maxBatch        the most inputs run together
+ * @param maxDelayMicros  the longest the first input of a batch waits for others to join it
+ */
+   public InferenceServer(Model model, int port, int maxBatch, long maxDelayMicros)
+   {
+      this.model = model;
+      this.port = port;
+      this.maxBatch = maxBatch;
+      maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+
+      queue = new LinkedBlockingQueue<Pending>();
+      batch = new Pending[maxBatch];
+      batchIn = new double[maxBatch][];
+      batchOut = new double[maxBatch][];
+      latencies = new long[LATENCY_SAMPLES];
+   } // public InferenceServer(Model model, int port, int maxBatch, long maxDelayMicros)
+
+/**
+ * Creates the executor the requests are handled on: one virtual thread per request where the JVM supports them, found
+ * by reflection so that the server still compiles and runs on Java 17, and otherwise a fixed pool of platform threads
+ *
+ * @return  the executor
+ */
+   public static ExecutorService createExecutor()
+   {
+      try
+      {
+         return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      }
+      catch (ReflectiveOperationException e)
+      {
+         return Executors.newFixedThreadPool(FALLBACK_THREADS_PER_CORE * Runtime.getRuntime().availableProcessors());
+      }
+   } // public static ExecutorService createExecutor()
+
+/**
+ * Binds the server to the loopback interface and starts the batcher and the request handlers
+ *
+ * @throws IOException may be thrown when the port cannot be bound
+ */
+   public void start() throws IOException
+   {
+      server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+      server.createContext("/predict", this::handlePredict);
+      server.createContext("/stats", this::handleStats);
+
+      executor = createExecutor();
+      server.setExecutor(executor);
+
+      batcher = new Thread(this::runBatches, "NLayer batcher");
+      batcher.setDaemon(true);
+
+      startTime = System.nanoTime();
+      batcher.start();
+      server.start();
+   } // public void start() throws IOException
+
+/**
+ * Stops accepting requests, waits briefly for the ones in flight, then stops the batcher and the handlers
+ */
+   public void stop()
+   {
+      server.stop(STOP_DELAY_SECONDS);
+      batcher.interrupt();
+      executor.shutdownNow();
+   }
+
+/**
+ * The batcher's loop: waits for an input, gathers the inputs that arrive within the delay, up to maxBatch of them, runs
+ * them together and wakes their handlers. The outputs are written straight into each input's own array. A batch that
+ * throws is recorded as failed on each of its inputs instead of ending the loop, and its handlers are woken all the
+ * same, since a batcher that died would leave every waiting and later request blocked forever.
+ */
+   public void runBatches()
+   {
+      int size, i;
+      long wait, deadline, now;
+      Pending next;
+      Throwable failure;
+
+      try
+      {
+         while (true)
+         {
+            batch[0] = queue.take();
+            size = 1;
+            deadline = batch[0].arrival + maxDelayNanos;
+
+            while (size < maxBatch)
+            {
+               next = queue.poll();
+
+               if (next == null)
+               {
+                  wait = deadline - System.nanoTime();
+                  next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+               }
+
+               if (next == null)
+                  break;
+
+               batch[size++] = next;
+            } // while (size < maxBatch)
+
+            for (i = 0; i < size; i++)
+            {
+               batchIn[i] = batch[i].in;
+               batchOut[i] = batch[i].out;
+            }
+
+            failure = null;
+            try
+            {
+               model.predictBatch(batchIn, batchOut, size, false);
+            }
+            catch (RuntimeException | Error e)
+            {
+               failure = e;
+               System.out.println("A batch of " + size + " inputs failed: " + e);
+            }
+            finally
+            {
+               now = System.nanoTime();
+               for (i = 0; i < size; i++)
+               {
+                  if (failure == null)
+                     recordLatency(now - batch[i].arrival);
+
+                  batch[i].failure = failure;
+                  batch[i].done.countDown();
+                  batch[i] = null;
+                  batchIn[i] = null;
+                  batchOut[i] = null;
+               }
+            } // try...catch (RuntimeException | Error e)...finally
+
+            if (failure == null)
+            {
+               synchronized (this)
+               {
+                  batches++;
+               }
+            }
+         } // while (true)
+      } // try
+      catch (InterruptedException e)
+      {
+         // stop() was called
+      }
+   } // public void runBatches()
+
+/**
+ * Handles POST /predict: parses one input per line, queues them all for the batcher and answers with their outputs, or
+ * with 500 if the batch of any of them failed
+ *
+ * @param exchange  the request and its response
+ * @throws IOException may be thrown when the request cannot be read or the response cannot be written
+ */
+   public void handlePredict(HttpExchange exchange) throws IOException
+   {
+      int row, k;
+      String lines[], values[];
+      Pending rows[];
+      StringBuilder body;
+
+      if (!exchange.getRequestMethod().equals("POST"))
+      {
+         respond(exchange, HTTP_BAD_METHOD, "Use POST\n");
+         return;
+      }
+
+      lines = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.US_ASCII).trim().split("\\R+");
+      rows = new Pending[lines.length];
+
+      try
+      {
+         for (row = 0; row < lines.length; row++)
+         {
+            values = lines[row].trim().split("\\s+");
+
+            if (values.length != model.inputSize())
+            {
+               respond(exchange, HTTP_BAD_REQUEST, "Line " + (row + 1) + " has " + values.length + " values, expected " +
+                                                   model.inputSize() + "\n");
+               return;
+            }
+
+            rows[row] = new Pending(new double[values.length], model.outputSize());
+            for (k = 0; k < values.length; k++)
+            {
+               rows[row].in[k] = Double.parseDouble(values[k]);
+            }
+         } // for (row = 0; row < lines.length; row++)
+      } // try
+      catch (NumberFormatException e)
+      {
+         respond(exchange, HTTP_BAD_REQUEST, e.getMessage() + "\n");
+         return;
+      }
+
+      body = new StringBuilder();
+
+      try
+      {
+         for (row = 0; row < rows.length; row++)
+         {
+            rows[row].arrival = System.nanoTime();
+            queue.put(rows[row]);
+         }
+
+         for (row = 0; row < rows.length; row++)
+         {
+            rows[row].done.await();
+
+            if (rows[row].failure != null)
+            {
+               respond(exchange, HTTP_SERVER_ERROR, "Prediction failed: " + rows[row].failure + "\n");
+               return;
+            }
+
+            for (k = 0; k < rows[row].out.length; k++)
+            {
+               body.append(k == 0 ? "" : " ").append(rows[row].out[k]);
+            }
+            body.append('\n');
+         } // for (row = 0; row < rows.length; row++)
+      } // try
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         exchange.close();
+         return;
+      }
+
+      respond(exchange, HTTP_OK, body.toString());
+   } // public void handlePredict(HttpExchange exchange) throws IOException
+
+/**
+ * Handles GET /stats
+ *
+ * @param exchange  the request and its response
+ * @throws IOException may be thrown when the response cannot be written
+ */
+   public void handleStats(HttpExchange exchange) throws IOException
+   {
+      respond(exchange, HTTP_OK, stats());
+   }
+
+/**
+ * Counts one finished prediction and keeps its latency among the most recent LATENCY_SAMPLES
+ *
+ * @param nanos  the time from the input arriving to its outputs being ready, in nanoseconds
+ */
+   public synchronized void recordLatency(long nanos)
+   {
+      latencies[(int) (predictions % LATENCY_SAMPLES)] = nanos;
+      predictions++;
+   }
+
+/**
+ * Summarizes the server's work so far: predictions, batches, throughput, and the p50 and p99 latencies of the most recent
+ * predictions
+ *
+ * @return  the summary, one value per line
+ */
+   public String stats()
+   {
+      int samples;
+      long count, batchCount, sorted[];
+      double seconds;
+
+      synchronized (this)
+      {
+         count = predictions;
+         batchCount = batches;
+         samples = (int) Math.min(count, LATENCY_SAMPLES);
+         sorted = Arrays.copyOf(latencies, samples);
+      }
+
+      Arrays.sort(sorted);
+      seconds = (System.nanoTime() - startTime) / NANOS_PER_SECOND;
+
+      return "predictions = " + count + "\n" +
+             "batches = " + batchCount + "\n" +
+             "averageBatchSize = " + (batchCount == 0 ? 0.0 : (double) count / batchCount) + "\n" +
+             "throughput = " + String.format("%.1f", count / seconds) + " predictions/s\n" +
+             "p50 = " + String.format("%.3f", samples == 0 ? 0.0 : sorted[samples / 2] / NANOS_PER_MILLI) + " ms\n" +
+             "p99 = " + String.format("%.3f", samples == 0 ? 0.0 : sorted[(int) (samples * 0.99)] / NANOS_PER_MILLI) + " ms\n";
+   } // public String stats()
+
+/**
+ * Sends a plain-text response and closes the exchange
+ *
+ * @param exchange  the request and its response
+ * @param status    the HTTP status code
+ * @param body      the text of the response
+ * @throws IOException may be thrown when the response cannot be written
+ */
+   public static void respond(HttpExchange exchange, int status, String body) throws IOException
+   {
+      byte bytes[] = body.getBytes(StandardCharsets.US_ASCII);
+
+      exchange.getResponseHeaders().set("Content-Type", "text/plain");
+      exchange.sendResponseHeaders(status, bytes.length);
+
+      try (OutputStream out = exchange.getResponseBody())
+      {
+         out.write(bytes);
+      }
+   } // public static void respond(HttpExchange exchange, int status, String body) throws IOException
+
+/**
+ * Loads the model named by the configuration file and serves it until the JVM is stopped, printing the stats on the way
+ * out
+ *
+ * @param args  the configuration file, then optionally the port, the largest batch and the batching delay in microseconds
+ * @throws IOException may be thrown when the model cannot be loaded or the port cannot be bound
+ */
+   public static void main(String args[]) throws IOException
+   {
+      int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+      int maxBatch = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_BATCH;
+      long maxDelayMicros = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_MAX_DELAY_MICROS;
+
+      if (args.length < 1)
+      {
+         System.out.println("Usage: java InferenceServer <configFile> [port] [maxBatch] [maxDelayMicros]");
+         return;
+      }
+
+      if (maxBatch < 1)
+      {
+         System.out.println("maxBatch must be at least 1, not " + maxBatch);
+         return;
+      }
+
+      InferenceServer s = new InferenceServer(Model.load(args[0]), port, maxBatch, maxDelayMicros);
+
+      s.start();
+      Runtime.getRuntime().addShutdownHook(new Thread(() ->
+      {
+         s.stop();
+         System.out.print(s.stats());
+      }));
+
+      System.out.println("Serving a " + s.model.inputSize() + "-input, " + s.model.outputSize() + "-output model on " +
+                         "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port + "/predict, " +
+                         "batching up to " + maxBatch + " inputs within " + maxDelayMicros + " us");
+   } // public static void main(String args[]) throws IOException
+} // public class InferenceServer
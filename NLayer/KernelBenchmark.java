@@ -0,0 +1,149 @@
+/**
+ * Times the scalar and vector kernels on one layer's worth of work for several layer widths and prints the speedup of the
+ * vector kernels. Each width is paired with a number of rows (neurons in the next layer), so a pass over the layer is
+ * rows dot products for the forward pass and rows calls to backpropRow for the backward pass.
+ * 
+ * Usage: java --add-modules jdk.incubator.vector KernelBenchmark
+ * 
+ * Table of Contents
+ *  • public static double timeForward(Kernels k, double[] a, double[] w, int width, int rows)
+ *  • public static double timeBackward(Kernels k, double[] a, double[] w, double[] omega, int width, int rows)
+ * 
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 4 May 2024
+ */
+public class KernelBenchmark
+{
+   static final int WIDTHS[] = {5, 64, 1024, 19650};
+   static final int ROWS[] = {5, 64, 256, 100};
+   static final int WARMUP_PASSES = 200;
+   static final long TARGET_NANOS = 500000000L;
+   static final double LAMBDA = 1.0e-9;
+
+   static double sink;
+
+/**
+ * Runs the forward kernel over a whole layer until at least TARGET_NANOS have passed
+ * 
+ * @param k      the kernels to time
+ * @param a      the activations of the layer
+ * @param w      the flat weights of the layer
+ * @param width  the number of activations
+ * @param rows   the number of neurons fed by the layer
+ * @return       the average time of one pass over the layer in nanoseconds
+ */
+   public static double timeForward(Kernels k, double[] a, double[] w, int width, int rows)
+   {
+      int pass, beta;
+      long start, elapsed;
+      double sum = 0.0;
+
+      for (pass = 0; pass < WARMUP_PASSES; pass++)
+      {
+         for (beta = 0; beta < rows; beta++)
+         {
+            sum += k.dot(a, 0, w, beta * width, width);
+         }
+      }
+
+      pass = 0;
+      start = System.nanoTime();
+      do
+      {
+         for (beta = 0; beta < rows; beta++)
+         {
+            sum += k.dot(a, 0, w, beta * width, width);
+         }
+         pass++;
+         elapsed = System.nanoTime() - start;
+      } while (elapsed < TARGET_NANOS);
+
+      sink += sum;
+      return ((double) elapsed) / pass;
+   } // public static double timeForward(Kernels k, double[] a, double[] w, int width, int rows)
+
+/**
+ * Runs the backward kernel over a whole layer until at least TARGET_NANOS have passed
+ * 
+ * @param k      the kernels to time
+ * @param a      the activations of the layer
+ * @param w      the flat weights of the layer
+ * @param omega  the omega scratch array of the layer
+ * @param width  the number of activations
+ * @param rows   the number of neurons fed by the layer
+ * @return       the average time of one pass over the layer in nanoseconds
+ */
+   public static double timeBackward(Kernels k, double[] a, double[] w, double[] omega, int width, int rows)
+   {
+      int pass, beta;
+      long start, elapsed;
+
+      for (pass = 0; pass < WARMUP_PASSES; pass++)
+      {
+         for (beta = 0; beta < rows; beta++)
+         {
+            k.backpropRow(w, beta * width, a, omega, a[beta % width], LAMBDA, width);
+         }
+      }
+
+      pass = 0;
+      start = System.nanoTime();
+      do
+      {
+         for (beta = 0; beta < rows; beta++)
+         {
+            k.backpropRow(w, beta * width, a, omega, a[beta % width], LAMBDA, width);
+         }
+         pass++;
+         elapsed = System.nanoTime() - start;
+      } while (elapsed < TARGET_NANOS);
+
+      sink += omega[0];
+      return ((double) elapsed) / pass;
+   } // public static double timeBackward(Kernels k, double[] a, double[] w, double[] omega, int width, int rows)
+
+/**
+ * Times both kernel backends for every width in WIDTHS and prints the results as a table
+ * 
+ * @param args the parameters for the main method (unused)
+ */
+   public static void main(String args[])
+   {
+      int test, i;
+      double a[], w[], omega[];
+      double scalarForward, vectorForward, scalarBackward, vectorBackward;
+      Kernels scalar = new ScalarKernels();
+      Kernels vector = Kernels.create(Kernels.VECTOR);
+
+      System.out.println("Vector kernels: " + vector.getClass().getName());
+      System.out.printf("%8s %6s %14s %14s %8s %14s %14s %8s\n", "width", "rows", "scalar fwd ns", "vector fwd ns", "speedup",
+                        "scalar bwd ns", "vector bwd ns", "speedup");
+
+      for (test = 0; test < WIDTHS.length; test++)
+      {
+         a = new double[WIDTHS[test]];
+         omega = new double[WIDTHS[test]];
+         w = new double[WIDTHS[test] * ROWS[test]];
+
+         for (i = 0; i < a.length; i++)
+         {
+            a[i] = Math.random();
+         }
+
+         for (i = 0; i < w.length; i++)
+         {
+            w[i] = Math.random() - 0.5;
+         }
+
+         scalarForward = timeForward(scalar, a, w, WIDTHS[test], ROWS[test]);
+         vectorForward = timeForward(vector, a, w, WIDTHS[test], ROWS[test]);
+         scalarBackward = timeBackward(scalar, a, w, omega, WIDTHS[test], ROWS[test]);
+         vectorBackward = timeBackward(vector, a, w, omega, WIDTHS[test], ROWS[test]);
+
+         System.out.printf("%8d %6d %14.1f %14.1f %7.2fx %14.1f %14.1f %7.2fx\n", WIDTHS[test], ROWS[test], scalarForward,
+                           vectorForward, scalarForward / vectorForward, scalarBackward, vectorBackward,
+                           scalarBackward / vectorBackward);
+      } // for (test = 0; test < WIDTHS.length; test++)
+   } // public static void main(String args[])
+} // public class KernelBenchmark
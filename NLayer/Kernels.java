@@ -0,0 +1,259 @@
+import java.util.Arrays;
+
+/**
+ * This abstract class describes the numeric kernels used by the network for its hot loops: the dot product of an activation
+ * vector with one row of a flat weight array, and the fused omega accumulation and weight update used by backpropagation.
+ * Rows are addressed by an offset into the flat weight arrays described in NLayer.
+ * 
+ * The matrix-matrix products used by mini-batch training are built on top of dot and axpy. Matrices are flat and row-major:
+ * a batch of activations is a batch x width array, and a weight matrix is the out x in array used by NLayer. The products
+ * are blocked over the inner dimension and over the rows of the weight matrix so that a block of weights is reused for every
+ * row of the batch while it is still in cache.
+ * 
+ * The float overloads of dot, backpropRow and updateRow are the same kernels for the single-precision network, NLayerFloat.
+ * 
+ * Table of Contents
+ *  • public abstract double dot(double[] x, int xOff, double[] w, int wOff, int len)
+ *  • public abstract void backpropRow(double[] w, int wOff, double[] a, double[] omega, double psi, double lambda, int len)
+ *  • public abstract void updateRow(double[] w, int wOff, double[] a, double psi, double lambda, int len)
+ *  • public abstract void axpy(double s, double[] x, int xOff, double[] y, int yOff, int len)
+ *  • public void gemmForward(double[] x, double[] w, double[] theta, int batch, int in, int out)
+ *  • public void gemmBackward(double[] psi, double[] w, double[] omega, int batch, int in, int out)
+ *  • public void gemmGradient(double[] psi, double[] x, double[] grad, int batch, int in, int out)
+ *  • public abstract float dot(float[] x, int xOff, float[] w, int wOff, int len)
+ *  • public abstract void backpropRow(float[] w, int wOff, float[] a, float[] omega, float psi, float lambda, int len)
+ *  • public abstract void updateRow(float[] w, int wOff, float[] a, float psi, float lambda, int len)
+ *  • public static Kernels create(String name)
+ * 
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 4 May 2024
+ */
+public abstract class Kernels
+{
+   static final String SCALAR = "SCALAR";
+   static final String VECTOR = "VECTOR";
+   static final String VECTOR_CLASS_NAME = "VectorKernels";
+
+   static final int BLOCK_INNER = 512;
+   static final int BLOCK_ROWS = 64;
+
+/**
+ * Computes the dot product of len elements of x, starting at xOff, with len elements of w, starting at wOff
+ * 
+ * @param x     the activations of the previous layer
+ * @param xOff  the index of the first activation
+ * @param w     the flat weight array
+ * @param wOff  the index of the first weight in the row
+ * @param len   the number of elements to multiply
+ * @return      the sum of the products, or uppercase theta
+ */
+   public abstract double dot(double[] x, int xOff, double[] w, int wOff, int len);
+
+/**
+ * Accumulates the contribution of one neuron's psi into omega and updates the row of weights feeding that neuron, i.e.
+ * omega[i] += psi * w[wOff + i] followed by w[wOff + i] += lambda * a[i] * psi. Omega is always computed from the weights
+ * before they are updated.
+ * 
+ * @param w       the flat weight array
+ * @param wOff    the index of the first weight in the row
+ * @param a       the activations of the layer feeding the row
+ * @param omega   the omega values of the layer feeding the row
+ * @param psi     the psi value of the neuron the row feeds
+ * @param lambda  the learning rate
+ * @param len     the length of the row
+ */
+   public abstract void backpropRow(double[] w, int wOff, double[] a, double[] omega, double psi, double lambda, int len);
+
+/**
+ * Updates the row of weights feeding one neuron, i.e. w[wOff + i] += lambda * a[i] * psi
+ * 
+ * @param w       the flat weight array
+ * @param wOff    the index of the first weight in the row
+ * @param a       the activations of the layer feeding the row
+ * @param psi     the psi value of the neuron the row feeds
+ * @param lambda  the learning rate
+ * @param len     the length of the row
+ */
+   public abstract void updateRow(double[] w, int wOff, double[] a, double psi, double lambda, int len);
+
+/**
+ * Adds s times len elements of x, starting at xOff, to len elements of y, starting at yOff
+ * 
+ * @param s     the scale applied to x
+ * @param x     the array that is scaled and added
+ * @param xOff  the index of the first element of x
+ * @param y     the array that is added to
+ * @param yOff  the index of the first element of y
+ * @param len   the number of elements to add
+ */
+   public abstract void axpy(double s, double[] x, int xOff, double[] y, int yOff, int len);
+
+/**
+ * Computes the theta values of a whole batch for one layer, theta = x * transpose(w), i.e.
+ * theta[r * out + beta] = sum over gamma of x[r * in + gamma] * w[beta * in + gamma]
+ * 
+ * @param x      the batch x in activations of the previous layer
+ * @param w      the out x in flat weights of the layer
+ * @param theta  the batch x out theta values, overwritten
+ * @param batch  the number of rows in the batch
+ * @param in     the width of the previous layer
+ * @param out    the width of the layer
+ */
+   public void gemmForward(double[] x, double[] w, double[] theta, int batch, int in, int out)
+   {
+      int k0, kLen, j0, jEnd, r, beta;
+
+      Arrays.fill(theta, 0, batch * out, 0.0);
+
+      for (k0 = 0; k0 < in; k0 += BLOCK_INNER)
+      {
+         kLen = Math.min(BLOCK_INNER, in - k0);
+
+         for (j0 = 0; j0 < out; j0 += BLOCK_ROWS)
+         {
+            jEnd = Math.min(j0 + BLOCK_ROWS, out);
+
+            for (r = 0; r < batch; r++)
+            {
+               for (beta = j0; beta < jEnd; beta++)
+               {
+                  theta[r * out + beta] += dot(x, r * in + k0, w, beta * in + k0, kLen);
+               }
+            }
+         } // for (j0 = 0; j0 < out; j0 += BLOCK_ROWS)
+      } // for (k0 = 0; k0 < in; k0 += BLOCK_INNER)
+   } // public void gemmForward(double[] x, double[] w, double[] theta, int batch, int in, int out)
+
+/**
+ * Computes the omega values of a whole batch for one layer, omega = psi * w, i.e.
+ * omega[r * in + gamma] = sum over beta of psi[r * out + beta] * w[beta * in + gamma]
+ * 
+ * @param psi    the batch x out psi values of the layer fed by the weights
+ * @param w      the out x in flat weights
+ * @param omega  the batch x in omega values, overwritten
+ * @param batch  the number of rows in the batch
+ * @param in     the width of the layer feeding the weights
+ * @param out    the width of the layer fed by the weights
+ */
+   public void gemmBackward(double[] psi, double[] w, double[] omega, int batch, int in, int out)
+   {
+      int k0, kLen, j0, jEnd, r, beta;
+
+      Arrays.fill(omega, 0, batch * in, 0.0);
+
+      for (k0 = 0; k0 < in; k0 += BLOCK_INNER)
+      {
+         kLen = Math.min(BLOCK_INNER, in - k0);
+
+         for (j0 = 0; j0 < out; j0 += BLOCK_ROWS)
+         {
+            jEnd = Math.min(j0 + BLOCK_ROWS, out);
+
+            for (r = 0; r < batch; r++)
+            {
+               for (beta = j0; beta < jEnd; beta++)
+               {
+                  axpy(psi[r * out + beta], w, beta * in + k0, omega, r * in + k0, kLen);
+               }
+            }
+         } // for (j0 = 0; j0 < out; j0 += BLOCK_ROWS)
+      } // for (k0 = 0; k0 < in; k0 += BLOCK_INNER)
+   } // public void gemmBackward(double[] psi, double[] w, double[] omega, int batch, int in, int out)
+
+/**
+ * Adds the gradient of a whole batch for one layer to grad, grad += transpose(psi) * x, i.e.
+ * grad[beta * in + gamma] += sum over r of psi[r * out + beta] * x[r * in + gamma]
+ * 
+ * @param psi    the batch x out psi values of the layer fed by the weights
+ * @param x      the batch x in activations of the layer feeding the weights
+ * @param grad   the out x in gradient, laid out like the weights
+ * @param batch  the number of rows in the batch
+ * @param in     the width of the layer feeding the weights
+ * @param out    the width of the layer fed by the weights
+ */
+   public void gemmGradient(double[] psi, double[] x, double[] grad, int batch, int in, int out)
+   {
+      int k0, kLen, j0, jEnd, r, beta;
+
+      for (k0 = 0; k0 < in; k0 += BLOCK_INNER)
+      {
+         kLen = Math.min(BLOCK_INNER, in - k0);
+
+         for (j0 = 0; j0 < out; j0 += BLOCK_ROWS)
+         {
+            jEnd = Math.min(j0 + BLOCK_ROWS, out);
+
+            for (beta = j0; beta < jEnd; beta++)
+            {
+               for (r = 0; r < batch; r++)
+               {
+                  axpy(psi[r * out + beta], x, r * in + k0, grad, beta * in + k0, kLen);
+               }
+            }
+         } // for (j0 = 0; j0 < out; j0 += BLOCK_ROWS)
+      } // for (k0 = 0; k0 < in; k0 += BLOCK_INNER)
+   } // public void gemmGradient(double[] psi, double[] x, double[] grad, int batch, int in, int out)
+
+/**
+ * Computes the single-precision dot product of len elements of x, starting at xOff, with len elements of w, starting at wOff
+ * 
+ * @param x     the activations of the previous layer
+ * @param xOff  the index of the first activation
+ * @param w     the flat weight array
+ * @param wOff  the index of the first weight in the row
+ * @param len   the number of elements to multiply
+ * @return      the sum of the products, or uppercase theta
+ */
+   public abstract float dot(float[] x, int xOff, float[] w, int wOff, int len);
+
+/**
+ * Single-precision version of backpropRow: omega[i] += psi * w[wOff + i] followed by w[wOff + i] += lambda * a[i] * psi
+ * 
+ * @param w       the flat weight array
+ * @param wOff    the index of the first weight in the row
+ * @param a       the activations of the layer feeding the row
+ * @param omega   the omega values of the layer feeding the row
+ * @param psi     the psi value of the neuron the row feeds
+ * @param lambda  the learning rate
+ * @param len     the length of the row
+ */
+   public abstract void backpropRow(float[] w, int wOff, float[] a, float[] omega, float psi, float lambda, int len);
+
+/**
+ * Single-precision version of updateRow: w[wOff + i] += lambda * a[i] * psi
+ * 
+ * @param w       the flat weight array
+ * @param wOff    the index of the first weight in the row
+ * @param a       the activations of the layer feeding the row
+ * @param psi     the psi value of the neuron the row feeds
+ * @param lambda  the learning rate
+ * @param len     the length of the row
+ */
+   public abstract void updateRow(float[] w, int wOff, float[] a, float psi, float lambda, int len);
+
+/**
+ * Creates the kernels with the given configuration name. The vector kernels need the jdk.incubator.vector module, so they
+ * are loaded by name and the scalar kernels are used instead whenever the module is not available at run time.
+ * 
+ * @param name  either SCALAR or VECTOR
+ * @return      the kernels to use
+ */
+   public static Kernels create(String name)
+   {
+      Kernels kernels = new ScalarKernels();
+
+      if (name.equals(VECTOR))
+      {
+         try
+         {
+            kernels = (Kernels) Class.forName(VECTOR_CLASS_NAME).getDeclaredConstructor().newInstance();
+         }
+         catch (ReflectiveOperationException | LinkageError e)
+         {
+            System.out.println("Vector kernels unavailable (run with --add-modules jdk.incubator.vector), using scalar kernels");
+         }
+      } // if (name.equals(VECTOR))
+      return kernels;
+   } // public static Kernels create(String name)
+} // public abstract class Kernels
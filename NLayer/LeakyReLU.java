@@ -0,0 +1,134 @@
+/**
+ * The leaky rectified linear unit is a possible activation function used for the network: f(x) = x for positive x and
+ * slope * x otherwise. The small slope for negative x keeps a gradient flowing through neurons that would otherwise be
+ * stuck at zero. Since slope is positive, f(x) is positive exactly when x is, so the derivative can be taken from the
+ * output.
+ * 
+ * Table of Contents
+ *  • public LeakyReLU()
+ *  • public LeakyReLU(double slope)
+ *  • public double f(double x)
+ *  • public double fPrime(double x)
+ *  • public double fPrimeFromOutput(double x, double fx)
+ *  • public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+ *  • public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+ *  • public void apply(double in[], double out[], int from, int to)
+ * 
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 13 May 2024
+ */
+public class LeakyReLU extends ActivationFunction
+{
+   static final double DEFAULT_SLOPE = 0.01;
+
+   double slope;
+
+/**
+ * Constructor for the LeakyReLU class with the usual slope of 0.01 for negative x
+ */
+   public LeakyReLU()
+   {
+      this(DEFAULT_SLOPE);
+   }
+
+/**
+ * Constructor for the LeakyReLU class
+ * 
+ * @param slope  the slope for negative x, which must be positive
+ */
+   public LeakyReLU(double slope)
+   {
+      this.slope = slope;
+   }
+
+/**
+ * The activation function (leaky rectified linear unit) used for the network
+ * 
+ * @param x activations in previous layer * weights, or uppercase theta
+ * @return  the value of the activation
+ */
+   public double f(double x)
+   {
+      return x > 0.0 ? x : slope * x;
+   }
+
+/**
+ * The derivative of the leaky rectified linear unit: 1 for positive x and slope otherwise
+ * 
+ * @param x  activations in previous layer * weights, or uppercase theta
+ * @return  the change in the activation function
+ */
+   public double fPrime(double x)
+   {
+      return x > 0.0 ? 1.0 : slope;
+   }
+
+/**
+ * The derivative of the leaky rectified linear unit from its output
+ * 
+ * @param x   activations in previous layer * weights, or uppercase theta
+ * @param fx  the value of the activation, f(x)
+ * @return    the change in the activation function
+ */
+   public double fPrimeFromOutput(double x, double fx)
+   {
+      return fx > 0.0 ? 1.0 : slope;
+   }
+
+/**
+ * The derivative of the leaky rectified linear unit for a run of neurons from their activations
+ * 
+ * @param x     the theta values of the neurons
+ * @param fx    the activations of the neurons, f(x)
+ * @param out   receives the derivatives
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = fx[i] > 0.0 ? 1.0 : slope;
+      }
+   } // public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+
+/**
+ * The derivative of the leaky rectified linear unit for a run of single-precision neurons from their activations
+ * 
+ * @param x     the theta values of the neurons
+ * @param fx    the activations of the neurons, f(x)
+ * @param out   receives the derivatives
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = fx[i] > 0.0f ? 1.0f : (float) slope;
+      }
+   } // public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+
+/**
+ * Applies the leaky rectified linear unit to a run of neurons
+ * 
+ * @param in    the theta values of the neurons
+ * @param out   receives the activations, and may be the same array as in
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void apply(double in[], double out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = in[i] > 0.0 ? in[i] : slope * in[i];
+      }
+   } // public void apply(double in[], double out[], int from, int to)
+} // public class LeakyReLU extends ActivationFunction
@@ -0,0 +1,82 @@
+/**
+ * This abstract class describes a learning-rate schedule, which gives the learning rate for every iteration of training
+ * from the lambda in the configuration file. A schedule depends on nothing but the iteration, so a run resumed from a
+ * checkpoint carries on with exactly the rates it would have used. Large steps early on cover ground quickly, and the
+ * smaller steps later settle into a minimum that a constant lambda keeps overshooting.
+ *
+ * Table of Contents
+ *  • public LearningRateSchedule(double lambda)
+ *  • public abstract double rate(int iteration)
+ *  • public static LearningRateSchedule create(String name, double lambda, double decay, int step, double minLambda,
+ *                                              double periodGrowth, int maxIterations)
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 21 May 2024
+ */
+public abstract class LearningRateSchedule
+{
+   static final String CONSTANT = "CONSTANT";
+   static final String STEP = "STEP";
+   static final String EXPONENTIAL = "EXPONENTIAL";
+   static final String COSINE = "COSINE";
+   static final String WARM_RESTARTS = "WARM_RESTARTS";
+   static final String BOLD_DRIVER = "BOLD_DRIVER";
+
+   double lambda;
+
+/**
+ * Constructor for the LearningRateSchedule class
+ *
+ * @param lambda  the learning rate of the first iteration
+ */
+   public LearningRateSchedule(double lambda)
+   {
+      this.lambda = lambda;
+   }
+
+/**
+ * Gives the learning rate of an iteration
+ *
+ * @param iteration  the number of iterations finished before this one, so the first iteration is 0
+ * @return           the learning rate
+ */
+   public abstract double rate(int iteration);
+
+/**
+ * Creates the schedule with the given configuration name. CONSTANT and BOLD_DRIVER have no schedule, since a constant
+ * rate needs none and the bold driver adapts the rate to the error instead of to the iteration; an unknown name is
+ * treated as CONSTANT.
+ *
+ * @param name           CONSTANT, STEP, EXPONENTIAL, COSINE, WARM_RESTARTS or BOLD_DRIVER
+ * @param lambda         the learning rate of the first iteration
+ * @param decay          the factor STEP and EXPONENTIAL multiply the rate by every step iterations
+ * @param step           the number of iterations between STEP drops, or in the first WARM_RESTARTS period
+ * @param minLambda      the rate COSINE and WARM_RESTARTS anneal down to
+ * @param periodGrowth   the factor every WARM_RESTARTS period is longer than the one before
+ * @param maxIterations  the number of iterations COSINE anneals over
+ * @return               the schedule, or null for a constant rate
+ */
+   public static LearningRateSchedule create(String name, double lambda, double decay, int step, double minLambda,
+                                             double periodGrowth, int maxIterations)
+   {
+      LearningRateSchedule schedule = null;
+
+      if (name.equals(STEP))
+         schedule = new StepDecay(lambda, decay, step);
+
+      else if (name.equals(EXPONENTIAL))
+         schedule = new ExponentialDecay(lambda, decay, step);
+
+      else if (name.equals(COSINE))
+         schedule = new CosineAnnealing(lambda, minLambda, maxIterations, 1.0);
+
+      else if (name.equals(WARM_RESTARTS))
+         schedule = new CosineAnnealing(lambda, minLambda, step, periodGrowth);
+
+      else if (!name.equals(CONSTANT) && !name.equals(BOLD_DRIVER))
+         System.out.println("Unknown learning rate schedule " + name + ", keeping lambda constant");
+
+      return schedule;
+   } // public static LearningRateSchedule create(String name, double lambda, double decay, int step, ...)
+} // public abstract class LearningRateSchedule
@@ -0,0 +1,232 @@
+import java.util.Arrays;
+
+/**
+ * A MiniBatch holds the scratch matrices needed to train the network on several test cases at once. Every layer keeps a
+ * batch x width matrix of activations, theta, psi and omega values (flat and row-major, one row per test case), so the
+ * forward and backward passes become matrix-matrix products through the Kernels instead of one matrix-vector product per
+ * test case. The gradients of the batch are summed into arrays laid out exactly like NLayer's weights, so they can be
+ * applied to the weights with a single axpy per layer. When metrics is set, the forward, backward and gradient time of every
+ * layer is added to it.
+ * 
+ * A batch that only evaluates, such as the one that runs the validation cases, is made forward-only. It allocates just
+ * the activations and targets: its theta values are worked out in place in the activations, and it has no psi, omega or
+ * gradients, which for a large network would otherwise be a second full copy of the weights that is never touched.
+ * 
+ * Table of Contents
+ *  • public MiniBatch(int layers[], int capacity, ActivationFunction act, Kernels kernels)
+ *  • public MiniBatch(int layers[], int capacity, ActivationFunction act, Kernels kernels, boolean training)
+ *  • public void load(double testCases[][], double trueOutputs[][], int first, int count)
+ *  • public void forward(double weights[][])
+ *  • public double error()
+ *  • public void clearGradients()
+ *  • public void accumulateGradients(double weights[][])
+ * 
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 5 May 2024
+ */
+public class MiniBatch
+{
+   static final int INPUTLAYER = 0;
+
+   int n;
+   int layers[];
+   int capacity;
+   int size;
+
+   double activations[][];
+   double theta[][];
+   double psi[][];
+   double omega[][];
+   double targets[];
+   double gradients[][];
+
+   ActivationFunction act;
+   Kernels kernels;
+   TrainingMetrics metrics;
+
+/**
+ * Constructor for the MiniBatch class that allocates the scratch matrices for training on up to capacity test cases
+ * 
+ * @param layers    the number of neurons in every layer of the network
+ * @param capacity  the largest number of test cases in one batch
+ * @param act       the activation function of the network
+ * @param kernels   the kernels used for the matrix products
+ */
+   public MiniBatch(int layers[], int capacity, ActivationFunction act, Kernels kernels)
+   {
+      this(layers, capacity, act, kernels, true);
+   }
+
+/**
+ * Constructor for the MiniBatch class that allocates the scratch matrices for up to capacity test cases, leaving out
+ * everything the backward pass needs unless the batch is for training
+ * 
+ * @param layers    the number of neurons in every layer of the network
+ * @param capacity  the largest number of test cases in one batch
+ * @param act       the activation function of the network
+ * @param kernels   the kernels used for the matrix products
+ * @param training  true to allow accumulateGradients, false for a batch that only calls forward and error
+ */
+   public MiniBatch(int layers[], int capacity, ActivationFunction act, Kernels kernels, boolean training)
+   {
+      int alpha;
+
+      this.layers = layers;
+      this.capacity = capacity;
+      this.act = act;
+      this.kernels = kernels;
+      n = layers.length;
+
+      activations = new double[n][];
+      theta = new double[n][];
+      psi = new double[n][];
+      omega = new double[n][];
+      for (alpha = 0; alpha < n; alpha++)
+      {
+         activations[alpha] = new double[capacity * layers[alpha]];
+         if (training)
+         {
+            theta[alpha] = new double[capacity * layers[alpha]];
+            psi[alpha] = new double[capacity * layers[alpha]];
+            omega[alpha] = new double[capacity * layers[alpha]];
+         }
+         else
+         {
+            theta[alpha] = activations[alpha];
+         }
+      } // for (alpha = 0; alpha < n; alpha++)
+
+      targets = new double[capacity * layers[n - 1]];
+
+      if (training)
+      {
+         gradients = new double[n - 1][];
+         for (alpha = 1; alpha < n; alpha++)
+         {
+            gradients[alpha - 1] = new double[layers[alpha - 1] * layers[alpha]];
+         }
+      }
+   } // public MiniBatch(int layers[], int capacity, ActivationFunction act, Kernels kernels, boolean training)
+
+/**
+ * Copies count test cases, starting at first, into the input rows and target rows of the batch
+ * 
+ * @param testCases    the inputs of every test case
+ * @param trueOutputs  the expected outputs of every test case
+ * @param first        the index of the first test case in the batch
+ * @param count        the number of test cases in the batch, at most capacity
+ */
+   public void load(double testCases[][], double trueOutputs[][], int first, int count)
+   {
+      int r;
+
+      size = count;
+
+      for (r = 0; r < count; r++)
+      {
+         System.arraycopy(testCases[first + r], 0, activations[INPUTLAYER], r * layers[INPUTLAYER], layers[INPUTLAYER]);
+         System.arraycopy(trueOutputs[first + r], 0, targets, r * layers[n - 1], layers[n - 1]);
+      }
+   } // public void load(double testCases[][], double trueOutputs[][], int first, int count)
+
+/**
+ * Runs every test case in the batch through the network, filling in the theta values and activations of every layer
+ * 
+ * @param weights  the flat weights of the network
+ */
+   public void forward(double weights[][])
+   {
+      int alpha;
+
+      if (metrics != null)
+         metrics.lap();
+
+      for (alpha = 1; alpha < n; alpha++)
+      {
+         kernels.gemmForward(activations[alpha - 1], weights[alpha - 1], theta[alpha], size, layers[alpha - 1], layers[alpha]);
+         act.apply(theta[alpha], activations[alpha], 0, size * layers[alpha]);
+
+         if (metrics != null)
+            metrics.forwardNanos[alpha] += metrics.lap();
+      }
+   } // public void forward(double weights[][])
+
+/**
+ * Sums the error of every test case in the batch, using the output activations of the last call to forward
+ * 
+ * @return  the sum over the batch of 0.5 * (T - F)^2 for every output
+ */
+   public double error()
+   {
+      int i;
+      double diff;
+      double sum = 0.0;
+
+      for (i = 0; i < size * layers[n - 1]; i++)
+      {
+         diff = targets[i] - activations[n - 1][i];
+         sum += 0.5 * diff * diff;
+      }
+      return sum;
+   } // public double error()
+
+/**
+ * Sets every gradient to zero before a new batch is accumulated
+ */
+   public void clearGradients()
+   {
+      int alpha;
+
+      for (alpha = 0; alpha < n - 1; alpha++)
+      {
+         Arrays.fill(gradients[alpha], 0.0);
+      }
+   } // public void clearGradients()
+
+/**
+ * Backpropagates the batch through the network and adds the gradient of every weight, summed over the batch, to the
+ * gradients. The gradients have the same sign as the weight updates, so applying them is weights += lambda * gradients.
+ * 
+ * @precondition  forward has been called with the same weights
+ * @param weights  the flat weights of the network
+ */
+   public void accumulateGradients(double weights[][])
+   {
+      int alpha, i;
+
+      if (metrics != null)
+         metrics.lap();
+
+      act.fPrimeFromOutput(theta[n - 1], activations[n - 1], psi[n - 1], 0, size * layers[n - 1]);
+      for (i = 0; i < size * layers[n - 1]; i++)
+      {
+         psi[n - 1][i] = (targets[i] - activations[n - 1][i]) * psi[n - 1][i];
+      }
+
+      if (metrics != null)
+         metrics.backwardNanos[n - 1] += metrics.lap();
+
+      for (alpha = n - 1; alpha > 1; alpha--)
+      {
+         kernels.gemmBackward(psi[alpha], weights[alpha - 1], omega[alpha - 1], size, layers[alpha - 1], layers[alpha]);
+
+         act.fPrimeFromOutput(theta[alpha - 1], activations[alpha - 1], psi[alpha - 1], 0, size * layers[alpha - 1]);
+         for (i = 0; i < size * layers[alpha - 1]; i++)
+         {
+            psi[alpha - 1][i] = omega[alpha - 1][i] * psi[alpha - 1][i];
+         }
+
+         if (metrics != null)
+            metrics.backwardNanos[alpha] += metrics.lap();
+      } // for (alpha = n - 1; alpha > 1; alpha--)
+
+      for (alpha = 1; alpha < n; alpha++)
+      {
+         kernels.gemmGradient(psi[alpha], activations[alpha - 1], gradients[alpha - 1], size, layers[alpha - 1], layers[alpha]);
+
+         if (metrics != null)
+            metrics.updateNanos[alpha] += metrics.lap();
+      }
+   } // public void accumulateGradients(double weights[][])
+} // public class MiniBatch
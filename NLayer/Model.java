@@ -0,0 +1,264 @@
+import java.io.IOException;
+
+/**
+ * A Model is a trained network reduced to what inference needs: the layer sizes, the weights, the activation function and
+ * the kernels. It is immutable once built, since the layer sizes and weights are copied in and never written again, so
+ * one Model can be shared by any number of threads. The scratch activations of a forward pass live in an
+ * InferenceContext instead. predict(in, out) uses one context per calling thread, kept in a ThreadLocal, so after a
+ * thread's first call predictions do not allocate.
+ * 
+ * predictBatch runs many inputs at once. The rows are taken BLOCK_ROWS at a time, and each block goes through the network
+ * one layer at a time with the gemm kernels, so every weight row is loaded once per block instead of once per input. The
+ * blocks can also be spread across the common ForkJoin pool, with each worker using its own context.
+ * 
+ * Table of Contents
+ *  • public Model(int layers[], double weights[][], ActivationFunction act, Kernels kernels)
+ *  • public static Model load(String configFilePath)
+ *  • public InferenceContext newContext()
+ *  • public int inputSize()
+ *  • public int outputSize()
+ *  • public void predict(double in[], double out[])
+ *  • public void predict(double in[], double out[], InferenceContext context)
+ *  • public void predictBatch(double in[][], double out[][])
+ *  • public void predictBatch(double in[][], double out[][], boolean parallel)
+ *  • public void predictBatch(double in[][], double out[][], int rows, boolean parallel)
+ *  • public void predictBlock(double in[][], double out[][], int first, int size, InferenceContext context)
+ * 
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 14 May 2024
+ */
+public class Model
+{
+   static final int INPUTLAYER = 0;
+   static final int BLOCK_ROWS = 64;
+
+   final int n;
+   final int layers[];
+   final double weights[][];
+   final ActivationFunction act;
+   final Kernels kernels;
+   final ThreadLocal<InferenceContext> contexts;
+
+/**
+ * Constructor for the Model class that copies the layer sizes and weights of a network
+ * 
+ * @param layers   the number of neurons in every layer
+ * @param weights  the flat weights of every layer, laid out as in NLayer
+ * @param act      the activation function of the network
+ * @param kernels  the kernels used for the dot products
+ */
+   public Model(int layers[], double weights[][], ActivationFunction act, Kernels kernels)
+   {
+      int alpha;
+
+      this.layers = layers.clone();
+      this.act = act;
+      this.kernels = kernels;
+      n = layers.length;
+
+      this.weights = new double[n - 1][];
+      for (alpha = 0; alpha < n - 1; alpha++)
+      {
+         this.weights[alpha] = weights[alpha].clone();
+      }
+
+      contexts = ThreadLocal.withInitial(this::newContext);
+   } // public Model(int layers[], double weights[][], ActivationFunction act, Kernels kernels)
+
+/**
+ * Builds a Model from a configuration file the way NLayer would run it, loading (or randomizing) the weights it names
+ * 
+ * @param configFilePath  the filepath to the configuration file
+ * @return                the model
+ * @throws IOException may be thrown when the configuration, the truth table or the weights cannot be read
+ */
+   public static Model load(String configFilePath) throws IOException
+   {
+      NLayer network = new NLayer();
+
+      network.parseConfigParams(configFilePath);
+      network = network.forPrecision();
+      network.setConfigParams();
+      network.shouldTrain = false;
+      network.allocateArrayMemory();
+      network.populateArrays();
+      network.data.close();
+      if (network.validation != null)
+      {
+         network.validation.close();
+      }
+
+      return network.toModel();
+   } // public static Model load(String configFilePath)
+
+/**
+ * Allocates the scratch arrays for one forward pass through this model
+ * 
+ * @return  a new context, to be used by one thread at a time
+ */
+   public InferenceContext newContext()
+   {
+      return new InferenceContext(layers);
+   }
+
+/**
+ * Gets the number of inputs the model takes
+ * 
+ * @return  the size of the input layer
+ */
+   public int inputSize()
+   {
+      return layers[INPUTLAYER];
+   }
+
+/**
+ * Gets the number of outputs the model gives
+ * 
+ * @return  the size of the output layer
+ */
+   public int outputSize()
+   {
+      return layers[n - 1];
+   }
+
+/**
+ * Runs one input through the model using the calling thread's own context
+ * 
+ * @param in   the inputs, at least inputSize() of them
+ * @param out  receives the outputs, at least outputSize() of them
+ */
+   public void predict(double in[], double out[])
+   {
+      predict(in, out, contexts.get());
+   }
+
+/**
+ * Runs one input through the model using the given context
+ * 
+ * @param in       the inputs, at least inputSize() of them
+ * @param out      receives the outputs, at least outputSize() of them
+ * @param context  the scratch arrays for the pass, not in use by any other thread
+ */
+   public void predict(double in[], double out[], InferenceContext context)
+   {
+      int alpha, beta;
+      double a[][] = context.activations;
+
+      if (in.length < layers[INPUTLAYER] || out.length < layers[n - 1])
+         throw new IllegalArgumentException("Expected " + layers[INPUTLAYER] + " inputs and " + layers[n - 1] + " outputs");
+
+      System.arraycopy(in, 0, a[INPUTLAYER], 0, layers[INPUTLAYER]);
+
+      for (alpha = 1; alpha < n; alpha++)
+      {
+         for (beta = 0; beta < layers[alpha]; beta++)
+         {
+            a[alpha][beta] = kernels.dot(a[alpha - 1], 0, weights[alpha - 1], beta * layers[alpha - 1], layers[alpha - 1]);
+         }
+         act.apply(a[alpha], a[alpha], 0, layers[alpha]);
+      }
+
+      System.arraycopy(a[n - 1], 0, out, 0, layers[n - 1]);
+   } // public void predict(double in[], double out[], InferenceContext context)
+
+/**
+ * Runs every row of in through the model on the calling thread
+ * 
+ * @param in   the inputs, one row per input
+ * @param out  receives the outputs, one row per input, allocated by the caller
+ */
+   public void predictBatch(double in[][], double out[][])
+   {
+      predictBatch(in, out, false);
+   }
+
+/**
+ * Runs every row of in through the model a block of rows at a time, optionally spreading the blocks across the common
+ * ForkJoin pool. Each block writes only its own rows of out, so the blocks can run in any order.
+ * 
+ * @param in        the inputs, one row per input
+ * @param out       receives the outputs, one row per input, allocated by the caller
+ * @param parallel  whether to run the blocks in parallel
+ */
+   public void predictBatch(double in[][], double out[][], boolean parallel)
+   {
+      predictBatch(in, out, in.length, parallel);
+   }
+
+/**
+ * Runs the first rows rows of in through the model, so a caller can reuse arrays that are larger than the batch
+ * 
+ * @param in        the inputs, one row per input
+ * @param out       receives the outputs, one row per input, allocated by the caller
+ * @param rows      the number of rows to run
+ * @param parallel  whether to run the blocks in parallel
+ */
+   public void predictBatch(double in[][], double out[][], int rows, boolean parallel)
+   {
+      int block;
+      int blocks = (rows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+
+      if (in.length < rows || out.length < rows)
+         throw new IllegalArgumentException("Expected " + rows + " rows, got " + in.length + " inputs and " + out.length + " outputs");
+
+      if (parallel && blocks > 1 && ParallelRange.isUseful())
+      {
+         ParallelRange.forEach(0, blocks, (from, to) ->
+         {
+            int b;
+            InferenceContext context = contexts.get();
+
+            for (b = from; b < to; b++)
+            {
+               predictBlock(in, out, b * BLOCK_ROWS, Math.min(BLOCK_ROWS, rows - b * BLOCK_ROWS), context);
+            }
+         });
+      } // if (parallel && blocks > 1 && ParallelRange.isUseful())
+      else
+      {
+         for (block = 0; block < blocks; block++)
+         {
+            predictBlock(in, out, block * BLOCK_ROWS, Math.min(BLOCK_ROWS, rows - block * BLOCK_ROWS), contexts.get());
+         }
+      }
+   } // public void predictBatch(double in[][], double out[][], int rows, boolean parallel)
+
+/**
+ * Runs one block of up to BLOCK_ROWS rows through the model, a whole layer at a time
+ * 
+ * @param in       the inputs, one row per input
+ * @param out      receives the outputs, one row per input
+ * @param first    the first row of the block
+ * @param size     the number of rows in the block
+ * @param context  the scratch arrays for the block, not in use by any other thread
+ */
+   public void predictBlock(double in[][], double out[][], int first, int size, InferenceContext context)
+   {
+      int alpha, r;
+      double b[][];
+
+      context.allocateBlocks(BLOCK_ROWS);
+      b = context.blocks;
+
+      for (r = 0; r < size; r++)
+      {
+         if (in[first + r].length < layers[INPUTLAYER] || out[first + r].length < layers[n - 1])
+            throw new IllegalArgumentException("Row " + (first + r) + " does not fit a " + layers[INPUTLAYER] + "-input, " +
+                                               layers[n - 1] + "-output model");
+
+         System.arraycopy(in[first + r], 0, b[INPUTLAYER], r * layers[INPUTLAYER], layers[INPUTLAYER]);
+      }
+
+      for (alpha = 1; alpha < n; alpha++)
+      {
+         kernels.gemmForward(b[alpha - 1], weights[alpha - 1], b[alpha], size, layers[alpha - 1], layers[alpha]);
+         act.apply(b[alpha], b[alpha], 0, size * layers[alpha]);
+      }
+
+      for (r = 0; r < size; r++)
+      {
+         System.arraycopy(b[n - 1], r * layers[n - 1], out[first + r], 0, layers[n - 1]);
+      }
+   } // public void predictBlock(double in[][], double out[][], int first, int size, InferenceContext context)
+} // public class Model
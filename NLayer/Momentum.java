@@ -0,0 +1,80 @@
+/**
+ * Gradient descent with momentum keeps one moment, the velocity v of every weight, which sums the past gradients with
+ * each one decayed by mu per update: v = mu * v + g. Steps along directions the gradient keeps pointing in grow up to
+ * 1 / (1 - mu) times larger, while gradients that keep changing sign cancel out, so training crosses long flat valleys of
+ * the error much faster than plain gradient descent. Classical momentum moves the weight by lambda * v. Nesterov's
+ * variant moves it by lambda * (g + mu * v), which looks one velocity step ahead and overshoots less.
+ *
+ * Table of Contents
+ *  • public Momentum(int layers[], double mu, boolean nesterov)
+ *  • public void step(int layer, double w[], int off, double g[], int gOff, int len)
+ *  • public String toString()
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 20 May 2024
+ */
+public class Momentum extends Optimizer
+{
+   static final int VELOCITY = 0;
+
+   double mu;
+   boolean nesterov;
+
+/**
+ * Constructor for the Momentum class
+ *
+ * @param layers    the number of neurons in every layer of the network
+ * @param mu        the decay of the velocity, usually 0.9
+ * @param nesterov  whether to take Nesterov's look-ahead step
+ */
+   public Momentum(int layers[], double mu, boolean nesterov)
+   {
+      super(layers, 1);
+      this.mu = mu;
+      this.nesterov = nesterov;
+   }
+
+/**
+ * Updates len weights of one layer and their velocities
+ *
+ * @param layer  the index of the weight array, so that weights[layer] is w
+ * @param w      the flat weights of the layer
+ * @param off    the index of the first weight to update, in w and in the velocity
+ * @param g      the gradients
+ * @param gOff   the index of the gradient of the first weight
+ * @param len    the number of weights to update
+ */
+   public void step(int layer, double w[], int off, double g[], int gOff, int len)
+   {
+      int i;
+      double v[] = state[VELOCITY][layer];
+
+      if (nesterov)
+      {
+         for (i = 0; i < len; i++)
+         {
+            v[off + i] = mu * v[off + i] + g[gOff + i];
+            w[off + i] += lambda * (g[gOff + i] + mu * v[off + i]);
+         }
+      }
+      else
+      {
+         for (i = 0; i < len; i++)
+         {
+            v[off + i] = mu * v[off + i] + g[gOff + i];
+            w[off + i] += lambda * v[off + i];
+         }
+      } // if (nesterov)...else
+   } // public void step(int layer, double w[], int off, double g[], int gOff, int len)
+
+/**
+ * Describes the optimizer for the configuration echo
+ *
+ * @return  the name and decay of the optimizer
+ */
+   public String toString()
+   {
+      return (nesterov ? NESTEROV : MOMENTUM) + " (momentum " + mu + ")";
+   }
+} // public class Momentum extends Optimizer
@@ -1,5 +1,4 @@
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -13,25 +12,49 @@ import java.util.Scanner;
  * 
  * Table of Contents
  *  • public void parseConfigParams(String configFilePath)
+ *  • public NLayer forPrecision()
  *  • public void setConfigParams()
  *  • public void echoConfigParams()
  *  • public void allocateArrayMemory()
  *  • public double f(double x)
  *  • public double fPrime(double x)
  *  • public double randomize()
- *  • public void createTruthTable()
  *  • public void randomizeWeights()
+ *  • public void randomizeLayer(int alpha, SplitMix64 streams[])
+ *  • public void randomizeBlock(int alpha, int from, int to, SplitMix64 stream)
  *  • public void populateArrays()
+ *  • public void resume(String path)
+ *  • public void readBinaryWeights(String path)
+ *  • public void snapshotWeights(double copy[][])
+ *  • public double[][][] trainingMoments()
+ *  • public void restoreWeights(double copy[][])
+ *  • public void copyToSnapshot(Checkpointer.Snapshot snapshot)
+ *  • public void restoreSnapshot(Checkpointer.Snapshot snapshot)
+ *  • public void checkpoint(boolean wait)
+ *  • public void useChunk(DataSource.Chunk chunk)
+ *  • public void loadInputs(int testCase)
+ *  • public double outputActivation(int out)
+ *  • public void forwardLayer(int alpha, boolean keepTheta)
+ *  • public void forwardNeurons(int alpha, int from, int to, boolean keepTheta)
  *  • public void run()
  *  • public void runAllTestCases()
  *  • public void runForTrain(int testCase)
  *  • public void backpropagation(int testCase)
+ *  • public double caseError(int testCase)
+ *  • public double evaluateError()
+ *  • public double evaluateError(DataSource source)
+ *  • public double validationError()
+ *  • public void validate()
+ *  • public double trainBatch(int first, int count)
+ *  • public double trainEpoch()
+ *  • public void adaptLambda(double error)
  *  • public void train()
  *  • public void printTruthTable()
  *  • public void printTime(double seconds)
  *  • public void reportResults()
  *  • public void saveWeights()
  *  • public void loadWeights()
+ *  • public Model toModel()
  * 
  * @author  Kyle Li
  * @version 30 April 2024
@@ -52,42 +75,80 @@ public class NLayer
    static final int INPUTLAYER = 0; 
    static final int HIDLAYER1 = 1;
 
+   static final int RANDOM_BLOCK = 1 << 16;
+   static final int VALIDATION_ROWS = 64;
+
+   static final String ERROR_EXACT = "EXACT";
+   static final String ERROR_TRAINING = "TRAINING";
+   static final String ERROR_PERIODIC = "PERIODIC";
+
    int layers[]; 
 
    double activations[][];
    
    double theta[][];
    double psi[][]; 
+   double omega[][];
 
    double totalError;
    double avgError; 
    double errorThreshold; 
 
-   double weights[][][]; 
+/*
+ * weights[alpha - 1] holds every weight between layer alpha - 1 and layer alpha in one contiguous array. The weight from
+ * neuron gamma in layer alpha - 1 to neuron beta in layer alpha is stored at weights[alpha - 1][beta * layers[alpha - 1] + gamma],
+ * so the weights feeding a single neuron sit next to each other and the dot products walk memory with unit stride.
+ */
+   double weights[][]; 
 
    double lambda; 
 
    int iterations;
    int maxIterations;
+   boolean resumed;
 
    int numberOfCases; 
    double testCases[][]; 
    double trueOutputs[][];
 
+   boolean streamDataset;
+   int chunkCases;
+   DataSource data;
+   DataSource validation;
+
    double low;
    double high;
+   SplitMix64 random;
 
    boolean useRandomWeights;
    boolean shouldTrain;
    boolean shouldSaveWeights;
 
    int keepAlive;
+   int batchSize;
+   int numThreads;
+   long parallelThreshold;
+
+   String errorMode;
+   boolean exactError;
+   int errorInterval;
 
    String weightsFilePath;
+   boolean binaryWeights;
 
    int n;
 
    ActivationFunction act;
+   Kernels kernels;
+   MiniBatch batch;
+   ParallelTrainer parallel;
+   Optimizer optimizer;
+   LearningRateSchedule schedule;
+   BoldDriver boldDriver;
+   EarlyStopping earlyStopping;
+   MiniBatch validationBatch;
+   TrainingMetrics metrics;
+   Checkpointer checkpoints;
    NNParser p; 
 
    Scanner fin;
@@ -97,14 +158,33 @@ public class NLayer
  * Parses the given configuration file and gets the values for all the variables in it
  * 
  * @param configFilePath   the filepath to the configuration file
- * @throws FileNotFoundException 
+ * @throws IOException may be thrown when the configuration file or the truth table cannot be read
  */
-   public void parseConfigParams(String configFilePath) throws FileNotFoundException
+   public void parseConfigParams(String configFilePath) throws IOException
    {
       p = new NNParser(new Scanner(new File(configFilePath)));
       p.parseConfigFile();
    }
 
+/**
+ * Returns the network that matches the precision in the parsed configuration file: this network for double precision, or
+ * a single-precision NLayerFloat that shares the same parser for float precision.
+ * 
+ * @precondition  parseConfigParams has been called
+ * @return        the network to use
+ */
+   public NLayer forPrecision()
+   {
+      NLayer network = this;
+
+      if (p.precision.equals(NNParser.PRECISION_FLOAT))
+      {
+         network = new NLayerFloat();
+         network.p = p;
+      }
+      return network;
+   } // public NLayer forPrecision()
+
 /**
  * Sets configuration parameters, initializing variables to their respective constant values.
  */
@@ -126,13 +206,35 @@ public class NLayer
       high = p.high;
 
       act = p.act;
+      kernels = p.kernels;
 
       shouldTrain = p.shouldTrain;
       useRandomWeights = p.useRandomWeights;
       shouldSaveWeights = p.shouldSaveWeights;
       keepAlive = p.keepAlive;
+      batchSize = p.batchSize;
+      numThreads = p.numThreads;
+      parallelThreshold = p.parallelThreshold;
+
+      errorMode = p.errorMode;
+      exactError = errorMode.equals(ERROR_EXACT);
+      errorInterval = p.errorInterval;
+
+      streamDataset = p.streamDataset;
+      chunkCases = p.streamChunkCases;
+
+      if (numThreads > 1 && batchSize <= 1)
+      {
+         batchSize = streamDataset ? chunkCases : numberOfCases;
+      }
 
       weightsFilePath = p.weightsFilePath;
+      binaryWeights = p.weightsFormat.equals(NNParser.WEIGHTS_BINARY);
+
+      random = new SplitMix64(p.hasSeed ? p.seed : SplitMix64.mix64(System.nanoTime()));
+
+      schedule = LearningRateSchedule.create(p.lambdaSchedule, lambda, p.lambdaDecay, p.lambdaStep, p.lambdaMin,
+                                             p.lambdaPeriodGrowth, maxIterations);
    } // public void setConfigParams()
 
 /**
@@ -149,26 +251,100 @@ public class NLayer
       System.out.println(layers[n - 1] + " Network");
 
       System.out.println("Number of test cases: " + numberOfCases);
+      if (p.validation != null)
+      {
+         System.out.println("Holding out " + p.validationCases + " test cases for validation every " + p.validationInterval +
+                            " iterations, stopping after " + p.patience + " passes without improvement");
+      }
+
+      if (streamDataset)
+      {
+         System.out.println("Streaming the dataset in chunks of " + chunkCases + " test cases, " + p.streamReadAhead +
+                            " read ahead");
+      }
+
       if (shouldTrain)
       {
          System.out.println("Training");
          System.out.printf("Error threshold: %.4f\n", errorThreshold);
          System.out.println("Maximum iterations: " + maxIterations);
          System.out.println("Learning rate: " + lambda);
-      }
+
+         if (schedule != null)
+         {
+            System.out.println("Learning rate schedule: " + schedule);
+         }
+         else if (p.lambdaSchedule.equals(LearningRateSchedule.BOLD_DRIVER))
+         {
+            System.out.println("Learning rate adapted by the bold driver: times " + p.lambdaIncrease +
+                               " while the error falls, times " + p.lambdaDecrease + " and roll back when it rises, " +
+                               "down to " + Math.max(p.lambdaMin, p.lambda * BoldDriver.MIN_RATE_FRACTION));
+         }
+
+         if (!p.optimizer.equals(NNParser.DEFAULT_OPTIMIZER))
+         {
+            System.out.println("Optimizer: " + p.optimizer);
+         }
+
+         if (errorMode.equals(ERROR_PERIODIC))
+         {
+            System.out.println("Error evaluated every " + errorInterval + " iterations");
+         }
+         else
+         {
+            System.out.println("Error mode: " + errorMode);
+         }
+
+         if (batchSize > 1)
+         {
+            System.out.println("Mini-batch size: " + batchSize);
+         }
+
+         if (numThreads > 1)
+         {
+            System.out.println("Training threads: " + numThreads);
+         }
+
+         if (p.recordMetrics)
+         {
+            System.out.println("Recording metrics every " + p.metricsInterval + " iterations" +
+                               (p.metricsFilePath == null ? "" : " to " + p.metricsFilePath));
+         }
+
+         if (p.checkpointFilePath != null)
+         {
+            System.out.println("Checkpointing to " + p.checkpointFilePath + " every " +
+                               (p.checkpointInterval > 0 ? p.checkpointInterval + " iterations" : "") +
+                               (p.checkpointInterval > 0 && p.checkpointSeconds > 0 ? " or " : "") +
+                               (p.checkpointSeconds > 0 ? p.checkpointSeconds + " seconds" : ""));
+         }
+      } // if (shouldTrain)
       else
       {
          System.out.println("Running"); 
       }
 
+      System.out.println("Kernels: " + kernels.getClass().getName());
+      System.out.println("Precision: " + p.precision);
+
+      if (parallelThreshold > 0 && ParallelRange.isUseful())
+      {
+         System.out.println("Layers with at least " + parallelThreshold + " weights run forward on all cores");
+      }
+
       if (shouldSaveWeights)
       {
-         System.out.println("Saving weights to file with path " + weightsFilePath);
+         System.out.println("Saving " + p.weightsFormat.toLowerCase() + " weights to file with path " + weightsFilePath);
       }
 
-      if (useRandomWeights)
+      if (p.resumeFrom != null)
+      {
+         System.out.println("Resuming from checkpoint " + p.resumeFrom);
+      }
+      else if (useRandomWeights)
       {
-         System.out.println("Random weight values in the range (" + low + ", " + high + ")");
+         System.out.println("Random weight values in the range (" + low + ", " + high + ")" +
+                            (p.hasSeed ? " from seed " + p.seed : ""));
       }
       else
       {
@@ -177,9 +353,13 @@ public class NLayer
    } // public void echoConfigParams()
 
 /**
- * Initializes and allocates memory for all arrays necessary for the computation of the network
+ * Initializes and allocates memory for all arrays necessary for the computation of the network, along with the optimizer
+ * and its moments when training, the bold driver's snapshot when it adapts the learning rate, the best weights and the
+ * validation batch when test cases are held out for validation and the metrics recorder when training with recordMetrics
+ * 
+ * @throws IOException may be thrown when the metrics file cannot be created
  */
-   public void allocateArrayMemory()
+   public void allocateArrayMemory() throws IOException
    {
       int index; 
 
@@ -189,15 +369,12 @@ public class NLayer
          activations[index] = new double[layers[index]];
       }
 
-      weights = new double[n][][];
+      weights = new double[n - 1][];
       for (index = 0; index < n - 1; index++)
       {
-         weights[index] = new double[layers[index]][layers[index + 1]];
+         weights[index] = new double[layers[index] * layers[index + 1]];
       }
 
-      testCases = new double[numberOfCases][layers[INPUTLAYER]];
-      trueOutputs = new double[numberOfCases][layers[n - 1]]; 
-      
       if (shouldTrain)
       {  
          theta = new double[n][];
@@ -211,6 +388,51 @@ public class NLayer
          {
             psi[index] = new double[layers[index]];
          }
+
+         omega = new double[n][];
+         for (index = 0; index < n; index++)
+         {
+            omega[index] = new double[layers[index]];
+         }
+
+         optimizer = Optimizer.create(p.optimizer, layers, kernels, p.momentum, p.rmsDecay, p.beta1, p.beta2, p.epsilon);
+
+         if (numThreads > 1)
+         {
+            parallel = new ParallelTrainer(layers, batchSize, numThreads, act, kernels);
+         }
+         else if (batchSize > 1)
+         {
+            batch = new MiniBatch(layers, batchSize, act, kernels);
+         }
+
+         if (p.lambdaSchedule.equals(LearningRateSchedule.BOLD_DRIVER))
+         {
+            boldDriver = new BoldDriver(layers, trainingMoments().length, p.lambda, p.lambdaMin, p.lambdaIncrease,
+                                        p.lambdaDecrease);
+         }
+
+         if (p.validation != null)
+         {
+            earlyStopping = new EarlyStopping(layers, trainingMoments().length, p.validationInterval, p.patience);
+            validationBatch = new MiniBatch(layers, Math.min(VALIDATION_ROWS, p.validationCases), act, kernels, false);
+         }
+
+         if (p.recordMetrics)
+         {
+            metrics = new TrainingMetrics(layers, p.metricsFilePath, p.metricsInterval, exactError);
+
+            if (batch != null)
+            {
+               batch.metrics = metrics;
+            }
+         }
+
+         if (p.checkpointFilePath != null)
+         {
+            checkpoints = new Checkpointer(p.checkpointFilePath, layers, trainingMoments().length, p.checkpointInterval,
+                                           p.checkpointSeconds);
+         }
       } // if (shouldTrain)
    } // public void allocateArrayMemory()
 
@@ -238,62 +460,113 @@ public class NLayer
    }
 
 /**
-* Generates a random number within a range between low and high
+* Generates a random number within a range between low and high from the network's generator, whose state is saved in
+* checkpoints
 */
    public double randomize()
    {
-      return Math.random() * (high - low) + low;
+      return random.nextDouble() * (high - low) + low;
    }
 
 /**
- * Creates all test cases and their respective answers manually and stores them in arrays as a truth table
- */
-   public void createTruthTable()
+ * Randomizes the weights for the layers in a range between low (the lower bound of the range) and 
+ * high (the upper bound of the range). Every layer draws from its own stream split off the network's generator, and the
+ * stream of each layer is split again into one stream per block of RANDOM_BLOCK weights. The streams are all made up
+ * front, in order, so the weights depend only on the seed and never on how many threads filled them or in what order,
+ * and the blocks of a large layer can be filled in parallel.
+*/
+   public void randomizeWeights()
    {
-      int m, i, testCase; 
+      int alpha, block, blocks;
+      SplitMix64 layerStream;
+      SplitMix64 streams[][] = new SplitMix64[n - 1][];
 
-      for (testCase = 0; testCase < numberOfCases; testCase++)
+      for (alpha = 1; alpha < n; alpha++)
       {
-         for (m = 0; m < layers[INPUTLAYER]; m++)
-         {
-            testCases[testCase][m] = p.testCases[testCase][m];
-         }
+         layerStream = random.split();
+         blocks = (layers[alpha - 1] * layers[alpha] + RANDOM_BLOCK - 1) / RANDOM_BLOCK;
 
-         for (i = 0; i < layers[n - 1]; i++)
+         streams[alpha - 1] = new SplitMix64[blocks];
+         for (block = 0; block < blocks; block++)
          {
-            trueOutputs[testCase][i] = p.trueOutputs[testCase][i];
+            streams[alpha - 1][block] = layerStream.split();
          }
-      } // for (testCase = 0; testCase < numberOfCases; testCase++)
-   } // public void createTruthTable()
+      } // for (alpha = 1; alpha < n; alpha++)
+
+      for (alpha = 1; alpha < n; alpha++)
+      {
+         randomizeLayer(alpha, streams[alpha - 1]);
+      }
+   } // public void randomizeWeights()
 
 /**
- * Randomizes the weights for the layers in a range between low (the lower bound of the range) and 
- * high (the upper bound of the range)
-*/
-   public void randomizeWeights()
+ * Randomizes the weights feeding layer alpha, one block per stream, spreading the blocks across all cores when the layer
+ * has at least parallelThreshold weights
+ * 
+ * @param alpha    the layer whose incoming weights are randomized
+ * @param streams  one stream for every block of RANDOM_BLOCK weights
+ */
+   public void randomizeLayer(int alpha, SplitMix64 streams[])
    {
-      int alpha, beta, gamma;
+      int block;
+      int count = layers[alpha - 1] * layers[alpha];
 
-      for (alpha = 1; alpha < n; alpha++)
+      if (streams.length > 1 && parallelThreshold > 0 && count >= parallelThreshold && ParallelRange.isUseful())
       {
-         for (beta = 0; beta < layers[alpha]; beta++)
+         ParallelRange.forEach(0, streams.length, (from, to) ->
          {
-            for (gamma = 0; gamma < layers[alpha - 1]; gamma++)
+            int b;
+
+            for (b = from; b < to; b++)
             {
-               weights[alpha - 1][gamma][beta] = randomize();
+               randomizeBlock(alpha, b * RANDOM_BLOCK, Math.min(count, (b + 1) * RANDOM_BLOCK), streams[b]);
             }
+         });
+      } // if (streams.length > 1 && ...)
+      else
+      {
+         for (block = 0; block < streams.length; block++)
+         {
+            randomizeBlock(alpha, block * RANDOM_BLOCK, Math.min(count, (block + 1) * RANDOM_BLOCK), streams[block]);
          }
       }
-   } // public void randomizeWeights()
+   } // public void randomizeLayer(int alpha, SplitMix64 streams[])
 
 /**
- * Sets the test cases and the expected outputs for each case, and randomizes the weights in the layers
+ * Fills a block of the weights feeding layer alpha with random values in the range between low and high
+ * 
+ * @param alpha   the layer whose incoming weights are randomized
+ * @param from    the index of the first weight in the flat weights of the layer
+ * @param to      one past the index of the last weight
+ * @param stream  the stream the block draws from
+ */
+   public void randomizeBlock(int alpha, int from, int to, SplitMix64 stream)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         weights[alpha - 1][i] = stream.nextDouble() * (high - low) + low;
+      }
+   } // public void randomizeBlock(int alpha, int from, int to, SplitMix64 stream)
+
+/**
+ * Takes the dataset from the parser and randomizes or loads the weights in the layers, or resumes from a checkpoint when
+ * resumeFrom is given. The dataset is shared rather than copied: the network only ever reads the test cases, one chunk at
+ * a time, so a truth table is held in memory exactly once and a streamed dataset not at all.
+ * 
+ * @throws IOException may be thrown when the weights or the checkpoint cannot be read
  */
    public void populateArrays() throws IOException
    {
-      createTruthTable();
+      data = p.dataset;
+      validation = p.validation;
 
-      if (useRandomWeights)
+      if (p.resumeFrom != null)
+      {
+         resume(p.resumeFrom);
+      }
+      else if (useRandomWeights)
       {
          randomizeWeights();
       }
@@ -303,28 +576,270 @@ public class NLayer
       }
    } // public void populateArrays()
 
+/**
+ * Restores the weights, the optimizer moments, the iteration count, the error, the learning rate and the state of the
+ * random number generator from a checkpoint written by a Checkpointer, so that train carries on exactly where the
+ * checkpointed run left off
+ * 
+ * @param path  the path of the checkpoint weights file
+ * @throws IOException may be thrown when the checkpoint cannot be read or its files do not belong together
+ */
+   public void resume(String path) throws IOException
+   {
+      int k;
+      String statePath = Checkpointer.statePath(path);
+      TrainingState state = TrainingState.read(statePath);
+      double moments[][][] = trainingMoments();
+
+      if (WeightsFile.checksum(path, layers) != state.weightsChecksum)
+         throw new IOException(path + " does not match " + statePath + ", the checkpoint is incomplete");
+
+      if (shouldTrain && state.momentChecksums.length != moments.length)
+         throw new IOException(statePath + " has " + state.momentChecksums.length + " optimizer moments, the optimizer has " +
+                               moments.length);
+
+      for (k = 0; k < moments.length; k++)
+      {
+         if (WeightsFile.checksum(Checkpointer.momentPath(path, k), layers) != state.momentChecksums[k])
+            throw new IOException(Checkpointer.momentPath(path, k) + " does not match " + statePath +
+                                  ", the checkpoint is incomplete");
+
+         WeightsFile.read(Checkpointer.momentPath(path, k), layers, moments[k]);
+      }
+
+      readBinaryWeights(path);
+      iterations = state.iterations;
+      avgError = state.avgError;
+
+      if (state.hasRng)
+      {
+         random.setState(state.rngSeed, state.rngGamma);
+      }
+
+      if (state.hasLambda)
+      {
+         lambda = state.lambda;
+      }
+
+      if (optimizer != null)
+      {
+         optimizer.setSteps(state.optimizerSteps);
+      }
+      resumed = true;
+   } // public void resume(String path) throws IOException
+
+/**
+ * Reads a binary weights file into the weights
+ * 
+ * @param path  the path to the weights file
+ * @throws IOException may be thrown when the file cannot be read or does not match the network
+ */
+   public void readBinaryWeights(String path) throws IOException
+   {
+      WeightsFile.read(path, layers, weights);
+   }
+
+/**
+ * Copies the weights into a snapshot for a checkpoint
+ * 
+ * @param copy  receives the weights, laid out like weights
+ */
+   public void snapshotWeights(double copy[][])
+   {
+      int alpha;
+
+      for (alpha = 0; alpha < n - 1; alpha++)
+      {
+         System.arraycopy(weights[alpha], 0, copy[alpha], 0, weights[alpha].length);
+      }
+   } // public void snapshotWeights(double copy[][])
+
+/**
+ * Gets the optimizer's moments, the running averages it keeps for every weight, so that checkpoints can save and restore
+ * them. Plain gradient descent keeps none, and neither does a network that is not training.
+ * 
+ * @return  the moments, each laid out like weights
+ */
+   public double[][][] trainingMoments()
+   {
+      return (optimizer == null) ? new double[0][][] : optimizer.moments();
+   }
+
+/**
+ * Copies a snapshot's weights back into the weights
+ * 
+ * @param copy  the weights to restore, laid out like weights
+ */
+   public void restoreWeights(double copy[][])
+   {
+      int alpha;
+
+      for (alpha = 0; alpha < n - 1; alpha++)
+      {
+         System.arraycopy(copy[alpha], 0, weights[alpha], 0, weights[alpha].length);
+      }
+   } // public void restoreWeights(double copy[][])
+
+/**
+ * Copies the weights, the optimizer moments, the iteration count, the error, the learning rate and the generator state
+ * into a snapshot allocated for this network
+ * 
+ * @param snapshot  the snapshot to fill
+ */
+   public void copyToSnapshot(Checkpointer.Snapshot snapshot)
+   {
+      int k, alpha;
+      double moments[][][] = trainingMoments();
+
+      snapshotWeights(snapshot.weights);
+      for (k = 0; k < moments.length; k++)
+      {
+         for (alpha = 0; alpha < n - 1; alpha++)
+         {
+            System.arraycopy(moments[k][alpha], 0, snapshot.moments[k][alpha], 0, moments[k][alpha].length);
+         }
+      }
+
+      snapshot.state.iterations = iterations;
+      snapshot.state.avgError = avgError;
+      snapshot.state.hasRng = true;
+      snapshot.state.rngSeed = random.getSeed();
+      snapshot.state.rngGamma = random.getGamma();
+      snapshot.state.hasLambda = true;
+      snapshot.state.lambda = lambda;
+      snapshot.state.optimizerSteps = (optimizer == null) ? 0 : optimizer.getSteps();
+   } // public void copyToSnapshot(Checkpointer.Snapshot snapshot)
+
+/**
+ * Copies a snapshot's weights, optimizer moments and optimizer step count back, leaving the iteration count, the error,
+ * the learning rate and the generator as they are. The step count goes with the moments, since Adam's bias correction
+ * depends on how many updates built them.
+ * 
+ * @param snapshot  the snapshot filled by copyToSnapshot
+ */
+   public void restoreSnapshot(Checkpointer.Snapshot snapshot)
+   {
+      int k, alpha;
+      double moments[][][] = trainingMoments();
+
+      restoreWeights(snapshot.weights);
+      for (k = 0; k < moments.length; k++)
+      {
+         for (alpha = 0; alpha < n - 1; alpha++)
+         {
+            System.arraycopy(snapshot.moments[k][alpha], 0, moments[k][alpha], 0, moments[k][alpha].length);
+         }
+      }
+
+      if (optimizer != null)
+         optimizer.setSteps(snapshot.state.optimizerSteps);
+   } // public void restoreSnapshot(Checkpointer.Snapshot snapshot)
+
+/**
+ * Takes a checkpoint of the weights, the optimizer moments, the iteration count, the error, the learning rate and the
+ * generator state and hands it to the checkpoint writer. Unless told to wait, the checkpoint is skipped when the writer
+ * is still busy with the previous two.
+ * 
+ * @param wait  whether to wait for the writer to free a snapshot
+ */
+   public void checkpoint(boolean wait)
+   {
+      Checkpointer.Snapshot snapshot = wait ? checkpoints.acquireWaiting() : checkpoints.acquire();
+
+      if (snapshot != null)
+      {
+         copyToSnapshot(snapshot);
+         checkpoints.submit(snapshot);
+      }
+   } // public void checkpoint(boolean wait)
+
+/**
+ * Points the test case arrays at a chunk of the data source, so that test case r of the chunk is testCases[r] and 
+ * trueOutputs[r] for every method that takes a test case
+ * 
+ * @param chunk  the chunk to use
+ */
+   public void useChunk(DataSource.Chunk chunk)
+   {
+      testCases = chunk.inputs;
+      trueOutputs = chunk.outputs;
+   }
+
+/**
+ * Copies the inputs of a test case into the input layer
+ * 
+ * @param testCase  the test case to load
+ */
+   public void loadInputs(int testCase)
+   {
+      System.arraycopy(testCases[testCase], 0, activations[INPUTLAYER], 0, layers[INPUTLAYER]);
+   }
+
+/**
+ * Gets one output activation from the last run of the network
+ * 
+ * @param out  the index of the output neuron
+ * @return     the activation of that output neuron
+ */
+   public double outputActivation(int out)
+   {
+      return activations[n - 1][out];
+   }
+
+/**
+ * Runs one layer of the network forward, computing the activations of layer alpha from those of layer alpha - 1. Layers 
+ * with at least parallelThreshold weights have their output neurons split across all cores; smaller layers, such as 
+ * those of the XOR and ABCD networks, stay on the calling thread so they never pay for the fork.
+ * 
+ * @param alpha      the layer to compute
+ * @param keepTheta  whether theta is stored for backpropagation
+ */
+   public void forwardLayer(int alpha, boolean keepTheta)
+   {
+      if (parallelThreshold > 0 && (long) layers[alpha - 1] * layers[alpha] >= parallelThreshold && ParallelRange.isUseful())
+      {
+         ParallelRange.forEach(0, layers[alpha], (from, to) -> forwardNeurons(alpha, from, to, keepTheta));
+      }
+      else
+      {
+         forwardNeurons(alpha, 0, layers[alpha], keepTheta);
+      }
+   } // public void forwardLayer(int alpha, boolean keepTheta)
+
+/**
+ * Computes the activations of neurons from (inclusive) to to (exclusive) in layer alpha. The theta values of the whole run
+ * are found first and the activation function is then applied to all of them with one call. When theta is not kept, the
+ * theta values are written straight into the activations and turned into activations in place.
+ * 
+ * @param alpha      the layer to compute
+ * @param from       the first neuron to compute
+ * @param to         one past the last neuron to compute
+ * @param keepTheta  whether theta is stored for backpropagation
+ */
+   public void forwardNeurons(int alpha, int from, int to, boolean keepTheta)
+   {
+      int beta;
+      double sums[] = keepTheta ? theta[alpha] : activations[alpha];
+
+      for (beta = from; beta < to; beta++)
+      {
+         sums[beta] = kernels.dot(activations[alpha - 1], 0, weights[alpha - 1], beta * layers[alpha - 1], layers[alpha - 1]);
+      }
+      act.apply(sums, activations[alpha], from, to);
+   } // public void forwardNeurons(int alpha, int from, int to, boolean keepTheta)
+
 /**
  * Runs the network as it is; unlike train, run does not train the weights and instead immediately
  * calculates the output activation
  */
    public void run()
    {
-      int alpha, beta, gamma;
-      double tempTheta;
+      int alpha;
 
       for (alpha = 1; alpha < n; alpha++)
       {
-         for (beta = 0; beta < layers[alpha]; beta++)
-         {
-            tempTheta = 0.0;
-
-            for (gamma = 0; gamma < layers[alpha - 1]; gamma++)
-            {
-               tempTheta += activations[alpha - 1][gamma] * weights[alpha - 1][gamma][beta];
-            }
-            activations[alpha][beta] = f(tempTheta);
-         } // for (beta = 0; beta < layers[alpha]; beta++)
-      } // for (alpha = 1; alpha < n; alpha++)
+         forwardLayer(alpha, false);
+      }
    } // public void run()
 
 /**
@@ -332,15 +847,18 @@ public class NLayer
  */
    public void runAllTestCases()
    {
-      int testCase, inp;
+      int testCase;
+      DataSource.Chunk chunk;
 
-      for (testCase = 0; testCase < numberOfCases; testCase++)
+      data.rewind();
+      while ((chunk = data.next()) != null)
       {
-         for (inp = 0; inp < layers[INPUTLAYER]; inp++)
+         useChunk(chunk);
+         for (testCase = 0; testCase < chunk.size; testCase++)
          {
-            activations[INPUTLAYER][inp] = testCases[testCase][inp];
+            loadInputs(testCase);
+            run();
          }
-         run();
       }
    } // public void runAllTestCases()
 
@@ -349,120 +867,429 @@ public class NLayer
  */
    public void runForTrain(int testCase)
    {
-      int alpha, beta, gamma;
+      int alpha, beta;
 
-      for (alpha = 1; alpha < n - 1; alpha++)
+      if (metrics != null)
+         metrics.lap();
+
+      for (alpha = 1; alpha < n; alpha++)
       {
-         for (beta = 0; beta < layers[alpha]; beta++)
-         {
-            theta[alpha][beta] = 0.0;
+         forwardLayer(alpha, true);
 
-            for (gamma = 0; gamma < layers[alpha - 1]; gamma++)
-            {
-               theta[alpha][beta] += activations[alpha - 1][gamma] * weights[alpha - 1][gamma][beta];
-            }
-            activations[alpha][beta] = f(theta[alpha][beta]);
-         } // for (beta = 0; beta < layers[alpha]; beta++)
-      } // for (alpha = 1; alpha < n - 1; alpha++)
+         if (metrics != null)
+            metrics.forwardNanos[alpha] += metrics.lap();
+      }
 
       alpha = n - 1;
+      act.fPrimeFromOutput(theta[alpha], activations[alpha], psi[alpha], 0, layers[alpha]);
       for (beta = 0; beta < layers[alpha]; beta++)
       {
-         theta[alpha][beta] = 0.0;
-         
-         for (gamma = 0; gamma < layers[alpha - 1]; gamma++)
-         {
-            theta[alpha][beta] += activations[alpha - 1][gamma] * weights[alpha - 1][gamma][beta];
-         }
-         activations[alpha][beta] = f(theta[alpha][beta]);
-         psi[alpha][beta] = (trueOutputs[testCase][beta] - activations[alpha][beta]) * fPrime(theta[alpha][beta]);
-      } // for (beta = 0; beta < layers[alpha]; beta++)
+         psi[alpha][beta] = (trueOutputs[testCase][beta] - activations[alpha][beta]) * psi[alpha][beta];
+      }
+
+      if (metrics != null)
+         metrics.backwardNanos[alpha] += metrics.lap();
    } // public void runForTrain(int testCase)
 
 /**
  * Runs backpropagation on the network, which trains in a more optimized way (less loops) that goes also 
- * goes backwards to help in training the network
+ * goes backwards to help in training the network. The weights feeding each neuron are visited row by row so that 
+ * every inner loop walks the flat weight arrays with unit stride; omega is accumulated for a whole layer at a time.
+ * With plain gradient descent each row's update is fused with its omega accumulation. Any other optimizer needs omega
+ * from the weights before the update, so omega is accumulated for the whole layer first and the optimizer then updates
+ * the layer row by row.
  */
    public void backpropagation(int testCase)
    {
-      int alpha, beta, gamma, inp;
-      double omega;
+      int alpha, beta, gamma;
+      boolean fused = optimizer.isPlain();
+
+      optimizer.beginStep(lambda);
 
-      for (alpha = n - 2; alpha > 1; alpha--)
+      if (metrics != null)
+         metrics.lap();
+
+      for (alpha = n - 2; alpha >= HIDLAYER1; alpha--)
       {
          for (gamma = 0; gamma < layers[alpha]; gamma++)
-         {  
-            omega = 0.0;
+         {
+            omega[alpha][gamma] = 0.0;
+         }
+
+         if (fused)
+         {
+            for (beta = 0; beta < layers[alpha + 1]; beta++)
+            {
+               kernels.backpropRow(weights[alpha], beta * layers[alpha], activations[alpha], omega[alpha],
+                                   psi[alpha + 1][beta], lambda, layers[alpha]);
+            }
+         }
+         else
+         {
+            for (beta = 0; beta < layers[alpha + 1]; beta++)
+            {
+               kernels.axpy(psi[alpha + 1][beta], weights[alpha], beta * layers[alpha], omega[alpha], 0, layers[alpha]);
+            }
+
             for (beta = 0; beta < layers[alpha + 1]; beta++)
             {
-               omega += psi[alpha + 1][beta] * weights[alpha][gamma][beta];
-               weights[alpha][gamma][beta] += lambda * activations[alpha][gamma] * psi[alpha + 1][beta];
+               optimizer.stepRow(alpha, weights[alpha], beta * layers[alpha], activations[alpha], psi[alpha + 1][beta],
+                                 layers[alpha]);
             }
-            psi[alpha][gamma] = omega * fPrime(theta[alpha][gamma]);
-         } // for (gamma = 0; gamma < layers[alpha]; gamma++)
-      } // for (alpha = n - 2; alpha > 1; alpha--)
+         } // if (fused)...else
+
+         act.fPrimeFromOutput(theta[alpha], activations[alpha], psi[alpha], 0, layers[alpha]);
+         for (gamma = 0; gamma < layers[alpha]; gamma++)
+         {
+            psi[alpha][gamma] = omega[alpha][gamma] * psi[alpha][gamma];
+         }
+
+         if (metrics != null)
+            metrics.backwardNanos[alpha + 1] += metrics.lap();
+      } // for (alpha = n - 2; alpha >= HIDLAYER1; alpha--)
 
       alpha = HIDLAYER1;
       for (gamma = 0; gamma < layers[alpha]; gamma++)
       {
-         omega = 0.0;
-         for (beta = 0; beta < layers[alpha + 1]; beta++)
+         if (fused)
+            kernels.updateRow(weights[alpha - 1], gamma * layers[INPUTLAYER], activations[alpha - 1], psi[alpha][gamma],
+                              lambda, layers[INPUTLAYER]);
+         else
+            optimizer.stepRow(alpha - 1, weights[alpha - 1], gamma * layers[INPUTLAYER], activations[alpha - 1],
+                              psi[alpha][gamma], layers[INPUTLAYER]);
+      } // for (gamma = 0; gamma < layers[alpha]; gamma++)
+
+      if (metrics != null)
+         metrics.updateNanos[alpha] += metrics.lap();
+   } // public void backpropagation(int testCase)
+
+/**
+ * Finds the error of one test case from the output activations currently in the network
+ * 
+ * @param testCase  the test case whose expected outputs are compared with the output activations
+ * @return          the sum of 0.5 * (T - F)^2 over every output
+ */
+   public double caseError(int testCase)
+   {
+      int out;
+      double diff;
+      double error = 0.0;
+
+      for (out = 0; out < layers[n - 1]; out++)
+      {
+         diff = trueOutputs[testCase][out] - activations[n - 1][out];
+         error += 0.5 * diff * diff;
+      }
+      return error;
+   } // public double caseError(int testCase)
+
+/**
+ * Runs every test case through the network with the current weights and sums their errors. This is the evaluation pass
+ * used by the PERIODIC error mode.
+ * 
+ * @return  the total error over every test case
+ */
+   public double evaluateError()
+   {
+      return evaluateError(data);
+   }
+
+/**
+ * Runs every test case of a data source through the network with the current weights, one at a time, and sums their
+ * errors
+ * 
+ * @param source  the test cases to run
+ * @return        the total error over every test case of the source
+ */
+   public double evaluateError(DataSource source)
+   {
+      int testCase;
+      double error = 0.0;
+      DataSource.Chunk chunk;
+
+      source.rewind();
+      while ((chunk = source.next()) != null)
+      {
+         useChunk(chunk);
+         for (testCase = 0; testCase < chunk.size; testCase++)
          {
-            omega += psi[alpha + 1][beta] * weights[alpha][gamma][beta];
-            weights[alpha][gamma][beta] += lambda * activations[alpha][gamma] * psi[alpha + 1][beta];
+            loadInputs(testCase);
+            run();
+            error += caseError(testCase);
          }
+      } // while ((chunk = source.next()) != null)
+      return error;
+   } // public double evaluateError(DataSource source)
+
+/**
+ * Finds the average error over the test cases held out for validation. They are run forward VALIDATION_ROWS at a time
+ * as a mini-batch, so every weight is read once per block of test cases instead of once per test case.
+ * 
+ * @return  the average error over every held-out test case
+ */
+   public double validationError()
+   {
+      int first, count;
+      double error = 0.0;
+      DataSource.Chunk chunk;
 
-         for (inp = 0; inp < layers[INPUTLAYER]; inp++)
+      validation.rewind();
+      while ((chunk = validation.next()) != null)
+      {
+         for (first = 0; first < chunk.size; first += VALIDATION_ROWS)
          {
-            weights[alpha - 1][inp][gamma] += lambda * activations[alpha - 1][inp] * omega * fPrime(theta[alpha][gamma]);
+            count = Math.min(VALIDATION_ROWS, chunk.size - first);
+            validationBatch.load(chunk.inputs, chunk.outputs, first, count);
+            validationBatch.forward(weights);
+            error += validationBatch.error();
          }
-      } // for (gamma = 0; gamma < layers[alpha]; gamma++)
-   } // public void backpropagation(int testCase)
+      } // while ((chunk = validation.next()) != null)
+      return error / ((double) validation.numberOfCases);
+   } // public double validationError()
+
+/**
+ * Finds the validation error and lets the early stopping judge it. The best weights so far are copied into its
+ * snapshot; once the error has gone patience passes without improving, they are restored along with their training
+ * error, and training stops.
+ */
+   public void validate()
+   {
+      if (earlyStopping.improved(iterations, validationError()))
+      {
+         copyToSnapshot(earlyStopping.best);
+      }
+      else if (earlyStopping.shouldStop())
+      {
+         restoreSnapshot(earlyStopping.best);
+         avgError = earlyStopping.best.state.avgError;
+         earlyStopping.stopped = true;
+      }
+   } // public void validate()
+
+/**
+ * Trains the network on count test cases, starting at first, as one mini-batch. The batch is run forward with the current
+ * weights, its gradients are summed over every test case, and the optimizer updates the weights once with the sum. In
+ * the EXACT error mode the batch is then run forward again with the updated weights to find its error; otherwise the
+ * error comes from the forward pass that was already needed for the gradients. With more than one thread, the batch is
+ * split across the workers of the ParallelTrainer instead.
+ * 
+ * @param first  the index of the first test case in the batch
+ * @param count  the number of test cases in the batch
+ * @return       the total error of the batch
+ */
+   public double trainBatch(int first, int count)
+   {
+      int alpha;
+      double error;
+
+      optimizer.beginStep(lambda);
+
+      if (parallel != null)
+      {
+         return parallel.trainBatch(weights, optimizer, testCases, trueOutputs, first, count, exactError);
+      }
+
+      batch.load(testCases, trueOutputs, first, count);
+      batch.forward(weights);
+      error = batch.error();
+
+      batch.clearGradients();
+      batch.accumulateGradients(weights);
+
+      for (alpha = 0; alpha < n - 1; alpha++)
+      {
+         optimizer.step(alpha, weights[alpha], 0, batch.gradients[alpha], 0, weights[alpha].length);
+
+         if (metrics != null)
+            metrics.updateNanos[alpha + 1] += metrics.lap();
+      }
+
+      if (exactError)
+      {
+         batch.forward(weights);
+         error = batch.error();
+      }
+      return error;
+   } // public double trainBatch(int first, int count)
+
+/**
+ * Trains the network on every test case once, one chunk of the data source at a time. When batchSize is greater than one
+ * the test cases of each chunk are trained in mini-batches, otherwise the weights are updated after every test case.
+ * 
+ * @return  the total error of the epoch, as defined by errorMode (zero for PERIODIC)
+ */
+   public double trainEpoch()
+   {
+      int testCase;
+      double error = 0.0;
+      DataSource.Chunk chunk;
+
+      data.rewind();
+      while ((chunk = data.next()) != null)
+      {
+         useChunk(chunk);
+
+         if (batchSize > 1)
+         {
+            for (testCase = 0; testCase < chunk.size; testCase += batchSize)
+            {
+               error += trainBatch(testCase, Math.min(batchSize, chunk.size - testCase));
+            }
+         }
+         else
+         {
+            for (testCase = 0; testCase < chunk.size; testCase++)
+            {
+               loadInputs(testCase);
+
+               runForTrain(testCase);
+
+               if (!exactError)
+               {
+                  error += caseError(testCase);
+               }
+
+               backpropagation(testCase);
+
+               if (exactError)
+               {
+                  run();
+                  error += caseError(testCase);
+               }
+            } // for (testCase = 0; testCase < chunk.size; testCase++)
+         } // if (batchSize > 1)...else
+      } // while ((chunk = data.next()) != null)
+      return error;
+   } // public double trainEpoch()
+
+/**
+ * Lets the bold driver judge the weights after an iteration. Weights that lowered the error are copied into its snapshot
+ * and their error becomes avgError; otherwise the weights and optimizer moments are rolled back to the snapshot and
+ * avgError goes back to theirs. Either way lambda becomes the bold driver's new learning rate.
+ * 
+ * @param error  the average error of the current weights over every test case, from an evaluation pass
+ */
+   public void adaptLambda(double error)
+   {
+      if (boldDriver.accept(error))
+      {
+         copyToSnapshot(boldDriver.accepted);
+         avgError = error;
+      }
+      else
+      {
+         restoreSnapshot(boldDriver.accepted);
+         avgError = boldDriver.acceptedError;
+      }
+      lambda = boldDriver.lambda;
+   } // public void adaptLambda(double error)
 
 /**
  * Repeatedly iterates through, modifying the weights on each pass to better match the output activation to the 
  * expected output. Finishes training when the current error is under the error threshold, or when the maximum
- * number of iterations has been reached
+ * number of iterations has been reached. 
+ * 
+ * The error that is compared with the threshold depends on errorMode. TRAINING (the default) sums the errors of the 
+ * forward passes that training already runs, i.e. each test case's error just before its own weight update. EXACT runs 
+ * every test case forward again after its update, which costs roughly half as much again as training itself. PERIODIC 
+ * skips the error during training and runs a separate evaluation pass with the final weights every errorInterval 
+ * iterations.
+ * 
+ * When batchSize is greater than one the test cases are trained in mini-batches,
+ * otherwise the weights are updated after every test case. When numThreads is greater than one every mini-batch is split
+ * across that many worker threads, and the whole set of test cases (or a whole chunk of a streamed dataset) is one batch 
+ * unless batchSize says otherwise.
+ * 
+ * The optimizer key chooses how gradients become weight updates: plain gradient descent (SGD, the default), MOMENTUM,
+ * NESTEROV, RMSPROP or ADAM. Its moments are checkpointed with the weights. The lambdaSchedule key sets lambda before
+ * every iteration from a LearningRateSchedule (STEP, EXPONENTIAL, COSINE or WARM_RESTARTS), or has the BOLD_DRIVER adapt
+ * it to the error after every iteration whose error is known. The errors that TRAINING and EXACT sum depend on the
+ * updates made during the iteration, so with those modes the bold driver judges the new weights by an evaluation pass.
+ * Training stops when the bold driver rejects a step at its floor, the larger of lambdaMin and a millionth of lambda.
+ * 
+ * With a validationFraction, the test cases held out of training are run every validationInterval iterations, and
+ * training also stops once their error has gone patience of those passes without improving. The weights with the
+ * lowest validation error are then restored.
+ * 
+ * With recordMetrics, the time of every phase of every layer and the throughput of training are recorded by a
+ * TrainingMetrics. With checkpointFilePath, the weights and training state are checkpointed in the background as
+ * training goes and once more at the end; a run resumed from a checkpoint starts from its iteration count and error.
+ * 
+ * @throws IOException may be thrown when a checkpoint could not be written
  */
-   public void train()
+   public void train() throws IOException
    {
-      int inp, out, testCase; 
+      boolean evaluated;
+      boolean periodicError = errorMode.equals(ERROR_PERIODIC);
 
-      totalError = Double.MAX_VALUE;
-      avgError = totalError / ((double) numberOfCases);
+      if (!resumed)
+      {
+         totalError = Double.MAX_VALUE;
+         avgError = totalError / ((double) numberOfCases);
+      }
 
       System.out.println("avgError: " + avgError + "\n");
 
-      while (avgError > errorThreshold && iterations < maxIterations)
+      if (boldDriver != null)
+      {
+         boldDriver.start(lambda, avgError);
+         copyToSnapshot(boldDriver.accepted);
+      }
+
+      if (metrics != null)
+         metrics.start();
+
+      while (avgError > errorThreshold && iterations < maxIterations &&
+             (earlyStopping == null || !earlyStopping.stopped) && (boldDriver == null || !boldDriver.stalled))
       {
-         totalError = 0.0;
+         if (schedule != null)
+            lambda = schedule.rate(iterations);
 
          iterations++;
 
-         for (testCase = 0; testCase < numberOfCases; testCase++)
-         {
-            for (inp = 0; inp < layers[INPUTLAYER]; inp++)
-            {
-               activations[INPUTLAYER][inp] = testCases[testCase][inp];
-            }
+         totalError = trainEpoch();
 
-            runForTrain(testCase);
-            backpropagation(testCase);
+         evaluated = !periodicError || iterations % errorInterval == NO_REMAINDER || iterations >= maxIterations;
+         if (!periodicError)
+         {
+            avgError = totalError / ((double) (numberOfCases));
+         }
+         else if (evaluated)
+         {
+            avgError = evaluateError() / ((double) (numberOfCases));
+         }
 
-            run();
+         if (boldDriver != null && evaluated)
+            adaptLambda(periodicError ? avgError : evaluateError() / ((double) (numberOfCases)));
 
-            for (out = 0; out < layers[n - 1]; out++)
-            {
-               totalError += 0.5 * (trueOutputs[testCase][out] - activations[n - 1][out]) * (trueOutputs[testCase][out] - activations[n - 1][out]);
-            }
-         } // for (testCase = 0; testCase < 4; testCase++)
-         avgError = totalError / ((double) (numberOfCases));
+         if (earlyStopping != null && earlyStopping.due(iterations))
+            validate();
 
          if (keepAlive >= SHOULD_KEEP_ALIVE && iterations % keepAlive == NO_REMAINDER) 
             System.out.printf("Iteration %d, Error = %f\n", iterations, avgError);
+
+         if (metrics != null)
+            metrics.endEpoch(iterations, avgError, numberOfCases);
+
+         if (checkpoints != null && checkpoints.due(iterations))
+            checkpoint(false);
       } // while (error > errorThreshold && iterations < maxIterations)
       totalError = 0.0;
-   } // public void train()
+
+      if (checkpoints != null)
+      {
+         checkpoint(true);
+         checkpoints.close();
+      }
+
+      if (metrics != null)
+         metrics.finish(iterations, avgError);
+
+      if (parallel != null)
+      {
+         parallel.shutdown();
+      }
+   } // public void train() throws IOException
 
 /**
  * Prints the truth table, including all cases and their expected values. 
@@ -470,6 +1297,7 @@ public class NLayer
    public void printTruthTable()
    {
       int testCase, inp, out;
+      DataSource.Chunk chunk;
 
       System.out.println("\nTruth Table");
 
@@ -487,21 +1315,26 @@ public class NLayer
 
       System.out.println();
 
-      for (testCase = 0; testCase < numberOfCases; testCase++)
+      data.rewind();
+      while ((chunk = data.next()) != null)
       {
-         for (inp = 0; inp < layers[INPUTLAYER]; inp++)
+         useChunk(chunk);
+         for (testCase = 0; testCase < chunk.size; testCase++)
          {
-            System.out.print(testCases[testCase][inp] + " ");
-         }
+            for (inp = 0; inp < layers[INPUTLAYER]; inp++)
+            {
+               System.out.print(testCases[testCase][inp] + " ");
+            }
 
-         System.out.print("| ");
+            System.out.print("| ");
 
-         for (out = 0; out < layers[n - 1]; out++)
-         {
-            System.out.print(trueOutputs[testCase][out] + " ");
-         }
-         System.out.println();
-      } // for (testCase = 0; testCase < numberOfCases; testCase++)
+            for (out = 0; out < layers[n - 1]; out++)
+            {
+               System.out.print(trueOutputs[testCase][out] + " ");
+            }
+            System.out.println();
+         } // for (testCase = 0; testCase < chunk.size; testCase++)
+      } // while ((chunk = data.next()) != null)
    } // public void printTruthTable()
 
 /*
@@ -561,29 +1394,31 @@ public class NLayer
  */
    public void reportResults()
    {
-      int testCase, inp, out; 
+      int testCase, out; 
+      DataSource.Chunk chunk;
 
       printTruthTable();
 
       System.out.println("\nOutputs");
 
-      for (testCase = 0; testCase < numberOfCases; testCase++)
+      data.rewind();
+      while ((chunk = data.next()) != null)
       {
-         System.out.println();
-
-         for (inp = 0; inp < layers[INPUTLAYER]; inp++)
+         useChunk(chunk);
+         for (testCase = 0; testCase < chunk.size; testCase++)
          {
-            activations[INPUTLAYER][inp] = testCases[testCase][inp];
-         }
+            System.out.println();
 
-         run();
+            loadInputs(testCase);
+            run();
 
-         for (out = 0; out < layers[n - 1]; out++)
-         {
-            System.out.printf("%.17f ", activations[n - 1][out]);
-            totalError += 0.5 * (trueOutputs[testCase][out] - activations[n - 1][out]) * (trueOutputs[testCase][out] - activations[n - 1][out]);
-         }
-      } // for (testCase = 0; testCase < numberOfCases; testCase++)
+            for (out = 0; out < layers[n - 1]; out++)
+            {
+               System.out.printf("%.17f ", outputActivation(out));
+            }
+            totalError += caseError(testCase);
+         } // for (testCase = 0; testCase < chunk.size; testCase++)
+      } // while ((chunk = data.next()) != null)
 
       System.out.println();
       
@@ -603,7 +1438,24 @@ public class NLayer
             System.out.printf("error under error threshold (%.4f)\n", errorThreshold);
          }
 
+         if (earlyStopping != null && earlyStopping.stopped)
+         {
+            System.out.println("Validation error did not improve in " + earlyStopping.patience + " passes, weights from " +
+                               "iteration " + earlyStopping.bestIteration + " restored");
+         }
+
+         if (boldDriver != null && boldDriver.stalled)
+         {
+            System.out.println("Bold driver rejected a step at its lowest learning rate (" + boldDriver.floor + ")");
+         }
+
          System.out.printf("average error: %.4f\n", avgError);
+
+         if (earlyStopping != null)
+         {
+            System.out.printf("validation error: %.4f (best %.4f at iteration %d)\n", earlyStopping.lastError,
+                              earlyStopping.bestError, earlyStopping.bestIteration);
+         }
       } // if (shouldTrain)
       else
       {
@@ -614,7 +1466,8 @@ public class NLayer
    } // public void reportResults()
 
 /**
- * Saves the calculated weights to a file for later usage
+ * Saves the calculated weights to a file for later usage. Text files hold one weight per line and suit the small networks;
+ * binary files (weightsFormat = BINARY) use the WeightsFile format and suit large ones.
  * 
  * @throws IOException may be thrown when writing to the file fails 
  */
@@ -622,6 +1475,12 @@ public class NLayer
    {
       int alpha, beta, gamma;
 
+      if (binaryWeights)
+      {
+         WeightsFile.write(weightsFilePath, layers, weights);
+         return;
+      }
+
       fout = new PrintWriter(new FileWriter(weightsFilePath), true);
 
       for (alpha = 1; alpha < n; alpha++)
@@ -630,7 +1489,7 @@ public class NLayer
          {
             for (beta = 0; beta < layers[alpha]; beta++)
             {
-               fout.println(weights[alpha - 1][gamma][beta]);
+               fout.println(weights[alpha - 1][beta * layers[alpha - 1] + gamma]);
             }
          }
       }
@@ -638,7 +1497,8 @@ public class NLayer
    } // public void saveWeights() throws IOException
 
 /**
- * Loads the weights from a file into the current weights arrays
+ * Loads the weights from a file into the current weights arrays. Binary weights files are recognized by their header, so
+ * either format can be loaded whatever weightsFormat says.
  * 
  * @throws IOException may be thrown when loading from the file fails
  */
@@ -646,6 +1506,12 @@ public class NLayer
    {
       int alpha, beta, gamma;
 
+      if (WeightsFile.isBinary(weightsFilePath))
+      {
+         WeightsFile.read(weightsFilePath, layers, weights);
+         return;
+      }
+
       fin = new Scanner(new File(weightsFilePath));
 
       for (alpha = 1; alpha < n; alpha++)
@@ -654,7 +1520,7 @@ public class NLayer
          {
             for (beta = 0; beta < layers[alpha]; beta++)
             {
-               weights[alpha - 1][gamma][beta] = fin.nextDouble(); 
+               weights[alpha - 1][beta * layers[alpha - 1] + gamma] = fin.nextDouble(); 
             }
          }
       }
@@ -662,6 +1528,17 @@ public class NLayer
       fin.close();
    } // public void loadWeights() throws IOException
 
+/**
+ * Copies the current layer sizes, weights, activation function and kernels into an immutable Model that any number of
+ * threads can run predictions on
+ * 
+ * @return  the model
+ */
+   public Model toModel()
+   {
+      return new Model(layers, weights, act, kernels);
+   }
+
 /**
  * The tester for the N-Layer Network
  * 
@@ -686,6 +1563,8 @@ public class NLayer
          n.parseConfigParams(DEFAULT_FILE_NAME);
       }
 
+      n = n.forPrecision();
+
       n.setConfigParams();
       n.echoConfigParams();
       n.allocateArrayMemory();
@@ -704,6 +1583,11 @@ public class NLayer
          n.saveWeights();
       }
       n.reportResults();
+      n.data.close();
+      if (n.validation != null)
+      {
+         n.validation.close();
+      }
 
       n.printTime((System.nanoTime() - startTime) / 1000000000);
    } // public static void main(String args[]) throws IOException
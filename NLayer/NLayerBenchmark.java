@@ -0,0 +1,307 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+
+/**
+ * Times the main operations of NLayer for several topologies, so that any change to the engine can be measured the same
+ * way before and after. For each topology a configuration file and a random binary dataset are written to a temporary
+ * directory. The network is then built from them exactly as main builds it, and each operation is timed on its own:
+ * run(), runForTrain(), backpropagation(), one training epoch, saveWeights and loadWeights in both weight formats, and
+ * NNParser.parseConfigFile().
+ *
+ * Each operation is repeated for at least WARMUP_NANOS so the JIT has compiled it, then repeated again until at least
+ * TARGET_NANOS have passed, and the average time of one call is printed. Results are written to a sink so that no call
+ * can be optimized away.
+ *
+ * Usage: java --add-modules jdk.incubator.vector NLayerBenchmark [SCALAR|VECTOR] [topology ...]
+ *
+ * A topology is the layer sizes joined by dashes, such as 2-5-5-3. Without any, the ABCD network (2-5-5-3), a small
+ * one-output network (2-20-1) and an image-sized autoencoder (19650-32-19650) are timed.
+ *
+ * Table of Contents
+ *  • public static double time(Body body)
+ *  • public static int[] parseTopology(String topology)
+ *  • public static String writeConfig(Path dir, int layers[], String kernels, String weightsFormat)
+ *  • public static NLayer build(String configFilePath)
+ *  • public static void benchmark(String topology, String kernels, Path dir)
+ *  • public static void main(String args[])
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 16 May 2024
+ */
+public class NLayerBenchmark
+{
+   static final String TOPOLOGIES[] = {"2-5-5-3", "2-20-1", "19650-32-19650"};
+   static final int CASES = 8;
+   static final long WARMUP_NANOS = 200000000L;
+   static final long TARGET_NANOS = 500000000L;
+   static final double LOW = -0.1;
+   static final double HIGH = 0.1;
+   static final double LAMBDA = 0.3;
+   static final double NANOS_PER_MICRO = 1e3;
+
+   static double sink;
+
+/**
+ * One operation to be timed
+ */
+   public interface Body
+   {
+/**
+ * Runs the operation once
+ *
+ * @throws IOException may be thrown by operations that read or write files
+ */
+      void run() throws IOException;
+   } // public interface Body
+
+/**
+ * Warms an operation up, then runs it until at least TARGET_NANOS have passed
+ *
+ * @param body  the operation
+ * @return      the average time of one call in nanoseconds
+ * @throws IOException may be thrown by the operation
+ */
+   public static double time(Body body) throws IOException
+   {
+      int calls;
+      long start, elapsed;
+
+      start = System.nanoTime();
+      do
+      {
+         body.run();
+      } while (System.nanoTime() - start < WARMUP_NANOS);
+
+      calls = 0;
+      start = System.nanoTime();
+      do
+      {
+         body.run();
+         calls++;
+         elapsed = System.nanoTime() - start;
+      } while (elapsed < TARGET_NANOS);
+
+      return ((double) elapsed) / calls;
+   } // public static double time(Body body) throws IOException
+
+/**
+ * Turns a topology such as 2-5-5-3 into layer sizes
+ *
+ * @param topology  the layer sizes joined by dashes
+ * @return          the number of neurons in every layer
+ */
+   public static int[] parseTopology(String topology)
+   {
+      int alpha;
+      String sizes[] = topology.split("-");
+      int layers[] = new int[sizes.length];
+
+      for (alpha = 0; alpha < sizes.length; alpha++)
+      {
+         layers[alpha] = Integer.parseInt(sizes[alpha]);
+      }
+      return layers;
+   } // public static int[] parseTopology(String topology)
+
+/**
+ * Writes a random binary dataset and a configuration file that trains on it with random weights
+ *
+ * @param dir            the directory to write to
+ * @param layers         the number of neurons in every layer
+ * @param kernels        the kernels to use, SCALAR or VECTOR
+ * @param weightsFormat  the format saveWeights writes, TEXT or BINARY
+ * @return               the path of the configuration file
+ * @throws IOException may be thrown when either file cannot be written
+ */
+   public static String writeConfig(Path dir, int layers[], String kernels, String weightsFormat) throws IOException
+   {
+      int n = layers.length;
+      int alpha, testCase, k;
+      double testCases[][] = new double[CASES][layers[0]];
+      double trueOutputs[][] = new double[CASES][layers[n - 1]];
+      String truthTable = dir.resolve("truthTable.bin").toString();
+      String config = dir.resolve("config" + weightsFormat + ".txt").toString();
+      PrintWriter out;
+
+      for (testCase = 0; testCase < CASES; testCase++)
+      {
+         for (k = 0; k < layers[0]; k++)
+         {
+            testCases[testCase][k] = Math.random();
+         }
+
+         for (k = 0; k < layers[n - 1]; k++)
+         {
+            trueOutputs[testCase][k] = Math.random();
+         }
+      } // for (testCase = 0; testCase < CASES; testCase++)
+
+      DatasetFile.write(truthTable, DatasetFile.DTYPE_FLOAT64, 1, testCases, trueOutputs);
+
+      out = new PrintWriter(config);
+      out.println("n = " + n);
+      out.println("inputNodes = " + layers[0]);
+      for (alpha = 1; alpha < n - 1; alpha++)
+      {
+         out.println("hiddenLayerNodes" + alpha + " = " + layers[alpha]);
+      }
+      out.println("outputNodes = " + layers[n - 1]);
+      out.println("errorThreshold = 0.0");
+      out.println("maxIterations = 1");
+      out.println("numberOfCases = " + CASES);
+      out.println("lambda = " + LAMBDA);
+      out.println("low = " + LOW);
+      out.println("high = " + HIGH);
+      out.println("keepAlive = 0");
+      out.println("activationFunction = SIGMOID");
+      out.println("kernels = " + kernels);
+      out.println("shouldTrain = true");
+      out.println("useRandomWeights = true");
+      out.println("shouldSaveWeights = false");
+      out.println("weightsFormat = " + weightsFormat);
+      out.println("weightsFilePath = " + dir.resolve("weights" + weightsFormat).toString());
+      out.println("truthTableFilePath = " + truthTable);
+      out.close();
+
+      return config;
+   } // public static String writeConfig(Path dir, int layers[], String kernels, String weightsFormat) throws IOException
+
+/**
+ * Builds a network from a configuration file the same way main does, ready to train
+ *
+ * @param configFilePath  the configuration file
+ * @return                the network, with its first chunk of test cases in use
+ * @throws IOException may be thrown when the configuration or the dataset cannot be read
+ */
+   public static NLayer build(String configFilePath) throws IOException
+   {
+      NLayer network = new NLayer();
+
+      network.parseConfigParams(configFilePath);
+      network = network.forPrecision();
+      network.setConfigParams();
+      network.allocateArrayMemory();
+      network.populateArrays();
+
+      network.data.rewind();
+      network.useChunk(network.data.next());
+      network.loadInputs(0);
+      return network;
+   } // public static NLayer build(String configFilePath) throws IOException
+
+/**
+ * Times every operation for one topology and prints a line for each
+ *
+ * @param topology  the layer sizes joined by dashes
+ * @param kernels   the kernels to use, SCALAR or VECTOR
+ * @param dir       the directory for the configuration, dataset and weights files
+ * @throws IOException may be thrown when a file cannot be read or written
+ */
+   public static void benchmark(String topology, String kernels, Path dir) throws IOException
+   {
+      int layers[] = parseTopology(topology);
+      String textConfig = writeConfig(dir, layers, kernels, NNParser.WEIGHTS_TEXT);
+      String binaryConfig = writeConfig(dir, layers, kernels, NNParser.WEIGHTS_BINARY);
+      NLayer text = build(textConfig);
+      NLayer binary = build(binaryConfig);
+
+      text.saveWeights();
+      binary.saveWeights();
+
+      System.out.printf("%-18s %-22s %14.3f\n", topology, "run()", time(() ->
+      {
+         text.run();
+         sink += text.outputActivation(0);
+      }) / NANOS_PER_MICRO);
+
+      System.out.printf("%-18s %-22s %14.3f\n", topology, "runForTrain()", time(() ->
+      {
+         text.runForTrain(0);
+         sink += text.psi[text.n - 1][0];
+      }) / NANOS_PER_MICRO);
+
+      System.out.printf("%-18s %-22s %14.3f\n", topology, "backpropagation()", time(() ->
+      {
+         text.backpropagation(0);
+         sink += text.weights[0][0];
+      }) / NANOS_PER_MICRO);
+
+      System.out.printf("%-18s %-22s %14.3f\n", topology, "trainEpoch()", time(() -> sink += text.trainEpoch()) /
+                        NANOS_PER_MICRO);
+
+      System.out.printf("%-18s %-22s %14.3f\n", topology, "saveWeights() TEXT", time(text::saveWeights) / NANOS_PER_MICRO);
+      System.out.printf("%-18s %-22s %14.3f\n", topology, "loadWeights() TEXT", time(text::loadWeights) / NANOS_PER_MICRO);
+      System.out.printf("%-18s %-22s %14.3f\n", topology, "saveWeights() BINARY", time(binary::saveWeights) /
+                        NANOS_PER_MICRO);
+      System.out.printf("%-18s %-22s %14.3f\n", topology, "loadWeights() BINARY", time(binary::loadWeights) /
+                        NANOS_PER_MICRO);
+
+      System.out.printf("%-18s %-22s %14.3f\n", topology, "parseConfigFile()", time(() ->
+      {
+         NNParser parser = new NNParser(new Scanner(new File(textConfig)));
+
+         parser.parseConfigFile();
+         parser.dataset.close();
+         sink += parser.numberOfCases;
+      }) / NANOS_PER_MICRO);
+
+      text.data.close();
+      binary.data.close();
+   } // public static void benchmark(String topology, String kernels, Path dir) throws IOException
+
+/**
+ * Times every operation for every topology given, or for TOPOLOGIES, and removes the temporary files afterwards
+ *
+ * @param args  optionally the kernels (SCALAR or VECTOR), then the topologies to time
+ * @throws IOException may be thrown when a temporary file cannot be read or written
+ */
+   public static void main(String args[]) throws IOException
+   {
+      int arg, count = 0;
+      String kernels = Kernels.SCALAR;
+      String topologies[] = new String[args.length];
+      Path dir = Files.createTempDirectory("nlayer-bench");
+      File files[];
+
+      for (arg = 0; arg < args.length; arg++)
+      {
+         if (Character.isDigit(args[arg].charAt(0)))
+            topologies[count++] = args[arg];
+         else
+            kernels = args[arg];
+      }
+
+      if (count == 0)
+      {
+         topologies = TOPOLOGIES;
+         count = TOPOLOGIES.length;
+      }
+
+      System.out.printf("%-18s %-22s %14s\n", "topology", "operation", "us/op");
+
+      try
+      {
+         for (arg = 0; arg < count; arg++)
+         {
+            benchmark(topologies[arg], kernels, dir);
+         }
+      }
+      finally
+      {
+         files = dir.toFile().listFiles();
+         for (arg = 0; files != null && arg < files.length; arg++)
+         {
+            files[arg].delete();
+         }
+         dir.toFile().delete();
+      } // try...finally
+
+      if (sink == Double.MIN_VALUE)
+         System.out.println();
+   } // public static void main(String args[]) throws IOException
+} // public class NLayerBenchmark
@@ -0,0 +1,433 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Scanner;
+
+/**
+ * The single-precision N-Layer Network keeps its activations, weights, theta, psi and omega values as floats instead of
+ * doubles, so a network takes half the memory and every pass over the weights moves half the bytes. It is selected with
+ * precision = FLOAT in the configuration file and keeps the same run, train, saveWeights and loadWeights API as NLayer,
+ * overriding only the methods that touch the stored values. The text weights file holds one float per line in the same 
+ * order as NLayer's and binary weights files are written with the float32 dtype, so either precision can load a file 
+ * written by the other.
+ *
+ * Image activations from BMP2Act are 8-bit grayscale values divided by 255, so single precision loses nothing meaningful.
+ * Mini-batch and multi-threaded training and every optimizer but plain gradient descent are only implemented in double
+ * precision, so they are turned off here.
+ *
+ * Table of Contents
+ *  • public void setConfigParams()
+ *  • public void allocateArrayMemory()
+ *  • public void randomizeBlock(int alpha, int from, int to, SplitMix64 stream)
+ *  • public void loadInputs(int testCase)
+ *  • public double outputActivation(int out)
+ *  • public void forwardNeurons(int alpha, int from, int to, boolean keepTheta)
+ *  • public void runForTrain(int testCase)
+ *  • public void backpropagation(int testCase)
+ *  • public double caseError(int testCase)
+ *  • public double validationError()
+ *  • public void saveWeights()
+ *  • public void loadWeights()
+ *  • public void readBinaryWeights(String path)
+ *  • public void snapshotWeights(double copy[][])
+ *  • public void restoreWeights(double copy[][])
+ *  • public Model toModel()
+ *
+ * @author  Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 8 May 2024
+ */
+public class NLayerFloat extends NLayer
+{
+   float activations32[][];
+   float theta32[][];
+   float psi32[][];
+   float omega32[][];
+   float weights32[][];
+
+/**
+ * Sets configuration parameters, turning off the training modes that are only implemented in double precision
+ */
+   public void setConfigParams()
+   {
+      super.setConfigParams();
+
+      if (batchSize > 1 || numThreads > 1)
+      {
+         System.out.println("Mini-batch and multi-threaded training need double precision, training one case at a time");
+         batchSize = 1;
+         numThreads = 1;
+      }
+
+      if (!p.optimizer.equals(NNParser.DEFAULT_OPTIMIZER))
+      {
+         System.out.println("The " + p.optimizer + " optimizer needs double precision, training with SGD");
+         p.optimizer = NNParser.DEFAULT_OPTIMIZER;
+      }
+   } // public void setConfigParams()
+
+/**
+ * Initializes and allocates memory for all single-precision arrays necessary for the computation of the network, along
+ * with the bold driver's snapshot when it adapts the learning rate, the best weights when test cases are held out for
+ * validation and the metrics recorder when training with recordMetrics
+ *
+ * @throws IOException may be thrown when the metrics file cannot be created
+ */
+   public void allocateArrayMemory() throws IOException
+   {
+      int index;
+
+      activations32 = new float[n][];
+      for (index = 0; index < n; index++)
+      {
+         activations32[index] = new float[layers[index]];
+      }
+
+      weights32 = new float[n - 1][];
+      for (index = 0; index < n - 1; index++)
+      {
+         weights32[index] = new float[layers[index] * layers[index + 1]];
+      }
+
+      if (shouldTrain)
+      {
+         theta32 = new float[n][];
+         psi32 = new float[n][];
+         omega32 = new float[n][];
+         for (index = 0; index < n; index++)
+         {
+            theta32[index] = new float[layers[index]];
+            psi32[index] = new float[layers[index]];
+            omega32[index] = new float[layers[index]];
+         }
+
+         optimizer = new SGD(layers, kernels);
+
+         if (p.lambdaSchedule.equals(LearningRateSchedule.BOLD_DRIVER))
+         {
+            boldDriver = new BoldDriver(layers, trainingMoments().length, p.lambda, p.lambdaMin, p.lambdaIncrease,
+                                        p.lambdaDecrease);
+         }
+
+         if (p.validation != null)
+         {
+            earlyStopping = new EarlyStopping(layers, trainingMoments().length, p.validationInterval, p.patience);
+         }
+
+         if (p.recordMetrics)
+         {
+            metrics = new TrainingMetrics(layers, p.metricsFilePath, p.metricsInterval, exactError);
+         }
+
+         if (p.checkpointFilePath != null)
+         {
+            checkpoints = new Checkpointer(p.checkpointFilePath, layers, trainingMoments().length, p.checkpointInterval,
+                                           p.checkpointSeconds);
+         }
+      } // if (shouldTrain)
+   } // public void allocateArrayMemory()
+
+/**
+ * Fills a block of the single-precision weights feeding layer alpha with random values in the range between low and high
+ *
+ * @param alpha   the layer whose incoming weights are randomized
+ * @param from    the index of the first weight in the flat weights of the layer
+ * @param to      one past the index of the last weight
+ * @param stream  the stream the block draws from
+ */
+   public void randomizeBlock(int alpha, int from, int to, SplitMix64 stream)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         weights32[alpha - 1][i] = (float) (stream.nextDouble() * (high - low) + low);
+      }
+   } // public void randomizeBlock(int alpha, int from, int to, SplitMix64 stream)
+
+/**
+ * Copies the inputs of a test case into the input layer, rounding them to single precision
+ *
+ * @param testCase  the test case to load
+ */
+   public void loadInputs(int testCase)
+   {
+      int inp;
+
+      for (inp = 0; inp < layers[INPUTLAYER]; inp++)
+      {
+         activations32[INPUTLAYER][inp] = (float) testCases[testCase][inp];
+      }
+   } // public void loadInputs(int testCase)
+
+/**
+ * Gets one output activation from the last run of the network
+ *
+ * @param out  the index of the output neuron
+ * @return     the activation of that output neuron
+ */
+   public double outputActivation(int out)
+   {
+      return activations32[n - 1][out];
+   }
+
+/**
+ * Computes the activations of neurons from (inclusive) to to (exclusive) in layer alpha
+ *
+ * @param alpha      the layer to compute
+ * @param from       the first neuron to compute
+ * @param to         one past the last neuron to compute
+ * @param keepTheta  whether theta is stored for backpropagation
+ */
+   public void forwardNeurons(int alpha, int from, int to, boolean keepTheta)
+   {
+      int beta;
+      float sums[] = keepTheta ? theta32[alpha] : activations32[alpha];
+
+      for (beta = from; beta < to; beta++)
+      {
+         sums[beta] = kernels.dot(activations32[alpha - 1], 0, weights32[alpha - 1], beta * layers[alpha - 1], layers[alpha - 1]);
+      }
+      act.apply(sums, activations32[alpha], from, to);
+   } // public void forwardNeurons(int alpha, int from, int to, boolean keepTheta)
+
+/**
+ * Calculates necessary values for training the network (including the activations, psi, and theta values)
+ *
+ * @param testCase  the test case whose expected outputs are used for the output psi values
+ */
+   public void runForTrain(int testCase)
+   {
+      int alpha, beta;
+
+      if (metrics != null)
+         metrics.lap();
+
+      for (alpha = 1; alpha < n; alpha++)
+      {
+         forwardLayer(alpha, true);
+
+         if (metrics != null)
+            metrics.forwardNanos[alpha] += metrics.lap();
+      }
+
+      alpha = n - 1;
+      act.fPrimeFromOutput(theta32[alpha], activations32[alpha], psi32[alpha], 0, layers[alpha]);
+      for (beta = 0; beta < layers[alpha]; beta++)
+      {
+         psi32[alpha][beta] = (float) ((trueOutputs[testCase][beta] - activations32[alpha][beta]) * psi32[alpha][beta]);
+      }
+
+      if (metrics != null)
+         metrics.backwardNanos[alpha] += metrics.lap();
+   } // public void runForTrain(int testCase)
+
+/**
+ * Runs backpropagation on the network in single precision, visiting the weights row by row as NLayer does
+ *
+ * @param testCase  the test case that was run by runForTrain
+ */
+   public void backpropagation(int testCase)
+   {
+      int alpha, beta, gamma;
+      float lambda32 = (float) lambda;
+
+      if (metrics != null)
+         metrics.lap();
+
+      for (alpha = n - 2; alpha >= HIDLAYER1; alpha--)
+      {
+         for (gamma = 0; gamma < layers[alpha]; gamma++)
+         {
+            omega32[alpha][gamma] = 0.0f;
+         }
+
+         for (beta = 0; beta < layers[alpha + 1]; beta++)
+         {
+            kernels.backpropRow(weights32[alpha], beta * layers[alpha], activations32[alpha], omega32[alpha],
+                                psi32[alpha + 1][beta], lambda32, layers[alpha]);
+         }
+
+         act.fPrimeFromOutput(theta32[alpha], activations32[alpha], psi32[alpha], 0, layers[alpha]);
+         for (gamma = 0; gamma < layers[alpha]; gamma++)
+         {
+            psi32[alpha][gamma] = omega32[alpha][gamma] * psi32[alpha][gamma];
+         }
+
+         if (metrics != null)
+            metrics.backwardNanos[alpha + 1] += metrics.lap();
+      } // for (alpha = n - 2; alpha >= HIDLAYER1; alpha--)
+
+      alpha = HIDLAYER1;
+      for (gamma = 0; gamma < layers[alpha]; gamma++)
+      {
+         kernels.updateRow(weights32[alpha - 1], gamma * layers[INPUTLAYER], activations32[alpha - 1], psi32[alpha][gamma],
+                           lambda32, layers[INPUTLAYER]);
+      }
+
+      if (metrics != null)
+         metrics.updateNanos[alpha] += metrics.lap();
+   } // public void backpropagation(int testCase)
+
+/**
+ * Finds the error of one test case from the output activations currently in the network
+ *
+ * @param testCase  the test case whose expected outputs are compared with the output activations
+ * @return          the sum of 0.5 * (T - F)^2 over every output
+ */
+   public double caseError(int testCase)
+   {
+      int out;
+      double diff;
+      double error = 0.0;
+
+      for (out = 0; out < layers[n - 1]; out++)
+      {
+         diff = trueOutputs[testCase][out] - activations32[n - 1][out];
+         error += 0.5 * diff * diff;
+      }
+      return error;
+   } // public double caseError(int testCase)
+
+/**
+ * Finds the average error over the test cases held out for validation, one test case at a time, since the batched
+ * forward pass works on double-precision weights
+ *
+ * @return  the average error over every held-out test case
+ */
+   public double validationError()
+   {
+      return evaluateError(validation) / ((double) validation.numberOfCases);
+   }
+
+/**
+ * Saves the single-precision weights to a file, one per line, in the same order as NLayer
+ *
+ * @throws IOException may be thrown when writing to the file fails
+ */
+   public void saveWeights() throws IOException
+   {
+      int alpha, beta, gamma;
+
+      if (binaryWeights)
+      {
+         WeightsFile.write(weightsFilePath, layers, weights32);
+         return;
+      }
+
+      fout = new PrintWriter(new FileWriter(weightsFilePath), true);
+
+      for (alpha = 1; alpha < n; alpha++)
+      {
+         for (gamma = 0; gamma < layers[alpha - 1]; gamma++)
+         {
+            for (beta = 0; beta < layers[alpha]; beta++)
+            {
+               fout.println(weights32[alpha - 1][beta * layers[alpha - 1] + gamma]);
+            }
+         }
+      }
+      fout.close();
+   } // public void saveWeights() throws IOException
+
+/**
+ * Loads the weights from a file into the single-precision weights arrays
+ *
+ * @throws IOException may be thrown when loading from the file fails
+ */
+   public void loadWeights() throws IOException
+   {
+      int alpha, beta, gamma;
+
+      if (WeightsFile.isBinary(weightsFilePath))
+      {
+         WeightsFile.read(weightsFilePath, layers, weights32);
+         return;
+      }
+
+      fin = new Scanner(new File(weightsFilePath));
+
+      for (alpha = 1; alpha < n; alpha++)
+      {
+         for (gamma = 0; gamma < layers[alpha - 1]; gamma++)
+         {
+            for (beta = 0; beta < layers[alpha]; beta++)
+            {
+               weights32[alpha - 1][beta * layers[alpha - 1] + gamma] = fin.nextFloat();
+            }
+         }
+      }
+
+      fin.close();
+   } // public void loadWeights() throws IOException
+
+/**
+ * Reads a binary weights file of either dtype into the single-precision weights
+ *
+ * @param path  the path to the weights file
+ * @throws IOException may be thrown when the file cannot be read or does not match the network
+ */
+   public void readBinaryWeights(String path) throws IOException
+   {
+      WeightsFile.read(path, layers, weights32);
+   }
+
+/**
+ * Widens the single-precision weights into a double-precision snapshot for a checkpoint
+ *
+ * @param copy  receives the weights, laid out like weights32
+ */
+   public void snapshotWeights(double copy[][])
+   {
+      int alpha, i;
+
+      for (alpha = 0; alpha < n - 1; alpha++)
+      {
+         for (i = 0; i < weights32[alpha].length; i++)
+         {
+            copy[alpha][i] = weights32[alpha][i];
+         }
+      }
+   } // public void snapshotWeights(double copy[][])
+
+/**
+ * Copies a snapshot's weights, taken by snapshotWeights, back into the single-precision weights. They were widened from
+ * floats, so nothing is lost.
+ *
+ * @param copy  the weights to restore, laid out like weights
+ */
+   public void restoreWeights(double copy[][])
+   {
+      int alpha, i;
+
+      for (alpha = 0; alpha < n - 1; alpha++)
+      {
+         for (i = 0; i < weights32[alpha].length; i++)
+         {
+            weights32[alpha][i] = (float) copy[alpha][i];
+         }
+      }
+   } // public void restoreWeights(double copy[][])
+
+/**
+ * Copies the single-precision weights, widened to double precision, into an immutable Model
+ *
+ * @return  the model
+ */
+   public Model toModel()
+   {
+      int alpha, i;
+      double wide[][] = new double[n - 1][];
+
+      for (alpha = 0; alpha < n - 1; alpha++)
+      {
+         wide[alpha] = new double[weights32[alpha].length];
+         for (i = 0; i < wide[alpha].length; i++)
+         {
+            wide[alpha][i] = weights32[alpha][i];
+         }
+      }
+      return new Model(layers, wide, act, kernels);
+   } // public Model toModel()
+} // public class NLayerFloat extends NLayer
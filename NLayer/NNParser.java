@@ -1,12 +1,13 @@
 import java.util.Scanner;
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 
 /**
  * The Parser class uses a Scanner to parse configuration files used to run the N-Layer network
  * 
  * Table of Contents
  *  • public void parseConfigFile()
+ *  • public static long parseSeed(String val)
+ *  • public void holdOut(int cases)
  *  • public void printEverything()
  * 
  * @author  Kyle Li
@@ -16,6 +17,31 @@ import java.io.FileNotFoundException;
 public class NNParser
 {
    static final int INPUTLAYER = 0;
+   static final long DEFAULT_PARALLEL_THRESHOLD = 1L << 16;
+   static final String DEFAULT_ERROR_MODE = "TRAINING";
+   static final String PRECISION_DOUBLE = "DOUBLE";
+   static final String PRECISION_FLOAT = "FLOAT";
+   static final String WEIGHTS_TEXT = "TEXT";
+   static final String WEIGHTS_BINARY = "BINARY";
+   static final int DEFAULT_ERROR_INTERVAL = 10;
+   static final int DEFAULT_STREAM_CHUNK_CASES = 256;
+   static final int DEFAULT_STREAM_READ_AHEAD = 2;
+   static final int DEFAULT_METRICS_INTERVAL = 1;
+   static final String DEFAULT_OPTIMIZER = "SGD";
+   static final double DEFAULT_MOMENTUM = 0.9;
+   static final double DEFAULT_RMS_DECAY = 0.9;
+   static final double DEFAULT_BETA1 = 0.9;
+   static final double DEFAULT_BETA2 = 0.999;
+   static final double DEFAULT_EPSILON = 1e-8;
+   static final String DEFAULT_LAMBDA_SCHEDULE = "CONSTANT";
+   static final double DEFAULT_LAMBDA_DECAY = 0.5;
+   static final int DEFAULT_LAMBDA_STEP = 1000;
+   static final double DEFAULT_LAMBDA_PERIOD_GROWTH = 2.0;
+   static final double DEFAULT_LAMBDA_INCREASE = 1.05;
+   static final double DEFAULT_LAMBDA_DECREASE = 0.5;
+   static final int DEFAULT_PATIENCE = 10;
+   static final int DEFAULT_VALIDATION_INTERVAL = 1;
+   static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
 
    Scanner sc;
 
@@ -33,16 +59,58 @@ public class NNParser
    boolean shouldTrain;
    boolean shouldSaveWeights;
    boolean useRandomWeights;
+   boolean streamDataset;
+   boolean recordMetrics;
 
    int keepAlive;
+   int batchSize;
+   int numThreads;
+   long parallelThreshold;
+   int errorInterval;
+   int streamChunkCases;
+   int streamReadAhead;
+   int metricsInterval;
+   int checkpointInterval;
+   long seed;
+   boolean hasSeed;
+   double checkpointSeconds;
+
+   double momentum;
+   double rmsDecay;
+   double beta1;
+   double beta2;
+   double epsilon;
+
+   double lambdaDecay;
+   int lambdaStep;
+   double lambdaMin;
+   double lambdaPeriodGrowth;
+   double lambdaIncrease;
+   double lambdaDecrease;
+
+   double validationFraction;
+   int validationCases;
+   int validationInterval;
+   int patience;
 
    String weightsFilePath;
    String truthTableFilePath;
+   String errorMode;
+   String precision;
+   String weightsFormat;
+   String metricsFilePath;
+   String checkpointFilePath;
+   String resumeFrom;
+   String optimizer;
+   String lambdaSchedule;
 
    double testCases[][]; 
    double trueOutputs[][];
+   DataSource dataset;
+   DataSource validation;
 
    ActivationFunction act;
+   Kernels kernels;
    
 /**
  * Constructor for the NNParser class that initializes the scanner
@@ -53,15 +121,44 @@ public class NNParser
    {
       sc = s;
       n = 0;
+      kernels = new ScalarKernels();
+      parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+      errorMode = DEFAULT_ERROR_MODE;
+      precision = PRECISION_DOUBLE;
+      weightsFormat = WEIGHTS_TEXT;
+      errorInterval = DEFAULT_ERROR_INTERVAL;
+      streamChunkCases = DEFAULT_STREAM_CHUNK_CASES;
+      streamReadAhead = DEFAULT_STREAM_READ_AHEAD;
+      metricsInterval = DEFAULT_METRICS_INTERVAL;
+      optimizer = DEFAULT_OPTIMIZER;
+      momentum = DEFAULT_MOMENTUM;
+      rmsDecay = DEFAULT_RMS_DECAY;
+      beta1 = DEFAULT_BETA1;
+      beta2 = DEFAULT_BETA2;
+      epsilon = DEFAULT_EPSILON;
+      lambdaSchedule = DEFAULT_LAMBDA_SCHEDULE;
+      lambdaDecay = DEFAULT_LAMBDA_DECAY;
+      lambdaStep = DEFAULT_LAMBDA_STEP;
+      lambdaPeriodGrowth = DEFAULT_LAMBDA_PERIOD_GROWTH;
+      lambdaIncrease = DEFAULT_LAMBDA_INCREASE;
+      lambdaDecrease = DEFAULT_LAMBDA_DECREASE;
+      validationInterval = DEFAULT_VALIDATION_INTERVAL;
+      patience = DEFAULT_PATIENCE;
    }
 
 /**
- * Parses the configuration file by line, sifting through each string to get the variable name and the value it should be assigned to
- * @throws FileNotFoundException 
+ * Parses the configuration file by line, sifting through each string to get the variable name and the value it should be assigned to,
+ * then loads the truth table, which may be a text table or a binary dataset written by DatasetConverter, into the dataset
+ * that the network reads its test cases from. A streamed dataset is left on disk and read one chunk at a time; its chunks
+ * hold a whole number of mini-batches so that no batch straddles two chunks. When training with a validationFraction,
+ * that fraction of the test cases is held out of the dataset into a validation data source. A checkpointFilePath given
+ * without checkpointInterval or checkpointSeconds is checkpointed every DEFAULT_CHECKPOINT_INTERVAL iterations.
+ * @throws IOException may be thrown when the truth table cannot be read, errorInterval is not positive, the seed is
+ *                     not a long or there are too few test cases to hold any out for validation
 */
-   public void parseConfigFile() throws FileNotFoundException
+   public void parseConfigFile() throws IOException
    {
-      int testCase, k, i, it, hiddenLayerNumber; 
+      int it, hiddenLayerNumber, held; 
       String line; 
 
       while (sc.hasNextLine())
@@ -128,6 +225,81 @@ public class NNParser
             else if (varName.equals("keepAlive"))
                keepAlive = (int) numVal;
 
+            else if (varName.equals("batchSize"))
+               batchSize = (int) numVal;
+
+            else if (varName.equals("numThreads"))
+               numThreads = (int) numVal;
+
+            else if (varName.equals("parallelThreshold"))
+               parallelThreshold = (long) numVal;
+
+            else if (varName.equals("errorInterval"))
+               errorInterval = (int) numVal;
+
+            else if (varName.equals("streamChunkCases"))
+               streamChunkCases = (int) numVal;
+
+            else if (varName.equals("streamReadAhead"))
+               streamReadAhead = (int) numVal;
+
+            else if (varName.equals("metricsInterval"))
+               metricsInterval = (int) numVal;
+
+            else if (varName.equals("checkpointInterval"))
+               checkpointInterval = (int) numVal;
+
+            else if (varName.equals("checkpointSeconds"))
+               checkpointSeconds = numVal;
+
+            else if (varName.equals("seed"))
+            {
+               seed = parseSeed(val);
+               hasSeed = true;
+            }
+
+            else if (varName.equals("momentum"))
+               momentum = numVal;
+
+            else if (varName.equals("rmsDecay"))
+               rmsDecay = numVal;
+
+            else if (varName.equals("beta1"))
+               beta1 = numVal;
+
+            else if (varName.equals("beta2"))
+               beta2 = numVal;
+
+            else if (varName.equals("epsilon"))
+               epsilon = numVal;
+
+            else if (varName.equals("lambdaDecay"))
+               lambdaDecay = numVal;
+
+            else if (varName.equals("lambdaStep"))
+               lambdaStep = (int) numVal;
+
+            else if (varName.equals("lambdaMin"))
+               lambdaMin = numVal;
+
+            else if (varName.equals("lambdaPeriodGrowth"))
+               lambdaPeriodGrowth = numVal;
+
+            else if (varName.equals("lambdaIncrease"))
+               lambdaIncrease = numVal;
+
+            else if (varName.equals("lambdaDecrease"))
+               lambdaDecrease = numVal;
+
+            else if (varName.equals("validationFraction"))
+               validationFraction = numVal;
+
+            else if (varName.equals("validationInterval"))
+               validationInterval = (int) numVal;
+
+            else if (varName.equals("patience"))
+               patience = (int) numVal;
+
             else if (varName.substring(0, 16).equals("hiddenLayerNodes"))
             {
                hiddenLayerNumber = Integer.parseInt(varName.substring(16));
@@ -156,6 +328,12 @@ public class NNParser
 
                else if (varName.equals("useRandomWeights"))
                   useRandomWeights = (boolVal == 1); 
+
+               else if (varName.equals("streamDataset"))
+                  streamDataset = (boolVal == 1);
+
+               else if (varName.equals("recordMetrics"))
+                  recordMetrics = (boolVal == 1);
             } // if (boolVal != -1)
             else
             {
@@ -166,35 +344,174 @@ public class NNParser
                {
                   if (val.equals("SIGMOID"))
                      act = new Sigmoid();
+
+                  else if (val.equals("FAST_SIGMOID"))
+                     act = new FastSigmoid();
+
+                  else if (val.equals("TANH"))
+                     act = new Tanh();
+
+                  else if (val.equals("RELU"))
+                     act = new ReLU();
+
+                  else if (val.equals("LEAKY_RELU"))
+                     act = new LeakyReLU();
                }
 
                else if (varName.equals("truthTableFilePath"))
                   truthTableFilePath = val;
+
+               else if (varName.equals("kernels"))
+                  kernels = Kernels.create(val);
+
+               else if (varName.equals("errorMode"))
+               {
+                  if (val.equals(NLayer.ERROR_TRAINING) || val.equals(NLayer.ERROR_EXACT) ||
+                      val.equals(NLayer.ERROR_PERIODIC))
+                     errorMode = val;
+                  else
+                     System.out.println("Unknown error mode " + val + ", using " + DEFAULT_ERROR_MODE);
+               }
+
+               else if (varName.equals("precision"))
+                  precision = val;
+
+               else if (varName.equals("weightsFormat"))
+                  weightsFormat = val;
+
+               else if (varName.equals("metricsFilePath"))
+               {
+                  metricsFilePath = val;
+                  recordMetrics = true;
+               }
+
+               else if (varName.equals("checkpointFilePath"))
+                  checkpointFilePath = val;
+
+               else if (varName.equals("resumeFrom"))
+                  resumeFrom = val;
+
+               else if (varName.equals("optimizer"))
+                  optimizer = val;
+
+               else if (varName.equals("lambdaSchedule"))
+                  lambdaSchedule = val;
+
+               else if (varName.equals("seed"))
+                  seed = parseSeed(val);
             } // if (boolVal != -1)...else
          } // try...catch (NumberFormatException e)
       } // while (sc.hasNextLine())
 
-      sc = new Scanner(new File(truthTableFilePath));
+      if (errorInterval < 1)
+         throw new IOException("errorInterval must be at least 1, not " + errorInterval);
+
+      if (checkpointFilePath != null && checkpointInterval <= 0 && checkpointSeconds <= 0.0)
+         checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+      held = 0;
+      if (shouldTrain && validationFraction > 0.0)
+      {
+         if (numberOfCases < 2)
+            throw new IOException("validationFraction needs at least 2 test cases to split, not " + numberOfCases);
+
+         held = Math.max(1, Math.min(numberOfCases - 1, (int) Math.round(validationFraction * numberOfCases)));
+      }
+
+      if (streamDataset)
+      {
+         if (!DatasetFile.isBinary(truthTableFilePath))
+            throw new IOException("Streaming needs a binary dataset, convert " + truthTableFilePath + " with DatasetConverter");
+
+         if (batchSize > 1)
+            streamChunkCases = (streamChunkCases + batchSize - 1) / batchSize * batchSize;
+
+         dataset = new StreamingDataSource(truthTableFilePath, numberOfCases, layers[INPUTLAYER], layers[n - 1],
+                                           streamChunkCases, streamReadAhead, 0, numberOfCases - held);
+         if (held > 0)
+         {
+            validation = new StreamingDataSource(truthTableFilePath, numberOfCases, layers[INPUTLAYER], layers[n - 1],
+                                                 Math.min(streamChunkCases, held), streamReadAhead, numberOfCases - held,
+                                                 held);
+            validationCases = held;
+            numberOfCases -= held;
+         }
+         return;
+      } // if (streamDataset)
 
       testCases = new double[numberOfCases][layers[INPUTLAYER]];
       trueOutputs = new double[numberOfCases][layers[n - 1]]; 
 
+      if (DatasetFile.isBinary(truthTableFilePath))
+         DatasetFile.read(truthTableFilePath, testCases, trueOutputs);
+      else
+         DatasetFile.readText(truthTableFilePath, testCases, trueOutputs);
+
+      if (held > 0)
+      {
+         holdOut(held);
+      }
+
+      dataset = new InMemoryDataSource(testCases, trueOutputs);
+   } // public void parseConfigFile()
+
+/**
+ * Reads the seed of the random number generator. A seed must be a whole number that fits in a long; anything else, such
+ * as 1e3, is refused rather than letting the run quietly seed from the clock and become unrepeatable.
+ * 
+ * @param val  the value given for seed in the configuration file
+ * @return     the seed
+ * @throws IOException thrown when the value is not a long
+ */
+   public static long parseSeed(String val) throws IOException
+   {
+      try
+      {
+         return Long.parseLong(val);
+      }
+      catch (NumberFormatException e)
+      {
+         throw new IOException("seed must be a whole number that fits in a long, not " + val);
+      }
+   } // public static long parseSeed(String val)
+
+/**
+ * Holds some of the test cases read into memory out for validation. The held-out cases are spread evenly over the
+ * truth table, so a table sorted by class still has every class in both parts. Rows are moved by reference, not
+ * copied, and the test cases left for training keep their order.
+ * 
+ * @param cases  the number of test cases to hold out, at least one and fewer than numberOfCases
+ */
+   public void holdOut(int cases)
+   {
+      int testCase, kept = 0, held = 0;
+      double keptCases[][] = new double[numberOfCases - cases][];
+      double keptOutputs[][] = new double[numberOfCases - cases][];
+      double heldCases[][] = new double[cases][];
+      double heldOutputs[][] = new double[cases][];
+
       for (testCase = 0; testCase < numberOfCases; testCase++)
       {
-         for (k = 0; k < layers[INPUTLAYER]; k++)
+         if ((long) (testCase + 1) * cases / numberOfCases > (long) testCase * cases / numberOfCases)
          {
-            testCases[testCase][k] = sc.nextDouble(); 
+            heldCases[held] = testCases[testCase];
+            heldOutputs[held] = trueOutputs[testCase];
+            held++;
          }
-
-         for (i = 0; i < layers[n - 1]; i++)
+         else
          {
-            trueOutputs[testCase][i] = sc.nextDouble(); 
+            keptCases[kept] = testCases[testCase];
+            keptOutputs[kept] = trueOutputs[testCase];
+            kept++;
          }
-
-         if (sc.hasNextLine())
-            sc.nextLine();
       } // for (testCase = 0; testCase < numberOfCases; testCase++)
-   } // public void parseConfigFile()
+
+      testCases = keptCases;
+      trueOutputs = keptOutputs;
+      validation = new InMemoryDataSource(heldCases, heldOutputs);
+      validationCases = cases;
+      numberOfCases -= cases;
+   } // public void holdOut(int cases)
 
 /**
  * Prints out the values in all the variables (for testing / debugging), as well as the truth table 
@@ -218,11 +535,47 @@ public class NNParser
       System.out.println("shouldTrain = " + shouldTrain);
       System.out.println("shouldSaveWeights = " + shouldSaveWeights);
       System.out.println("useRandomWeights = " + useRandomWeights);
+      System.out.println("streamDataset = " + streamDataset);
+      System.out.println("streamChunkCases = " + streamChunkCases);
+      System.out.println("streamReadAhead = " + streamReadAhead);
       System.out.println("keepAlive = " + keepAlive);
+      System.out.println("batchSize = " + batchSize);
+      System.out.println("numThreads = " + numThreads);
+      System.out.println("parallelThreshold = " + parallelThreshold);
+      System.out.println("errorMode = " + errorMode);
+      System.out.println("errorInterval = " + errorInterval);
+      System.out.println("precision = " + precision);
+      System.out.println("weightsFormat = " + weightsFormat);
+      System.out.println("recordMetrics = " + recordMetrics);
+      System.out.println("metricsFilePath = " + metricsFilePath);
+      System.out.println("metricsInterval = " + metricsInterval);
+      System.out.println("checkpointFilePath = " + checkpointFilePath);
+      System.out.println("checkpointInterval = " + checkpointInterval);
+      System.out.println("checkpointSeconds = " + checkpointSeconds);
+      System.out.println("resumeFrom = " + resumeFrom);
+      System.out.println("seed = " + (hasSeed ? String.valueOf(seed) : "none"));
+      System.out.println("optimizer = " + optimizer);
+      System.out.println("momentum = " + momentum);
+      System.out.println("rmsDecay = " + rmsDecay);
+      System.out.println("beta1 = " + beta1);
+      System.out.println("beta2 = " + beta2);
+      System.out.println("epsilon = " + epsilon);
+      System.out.println("lambdaSchedule = " + lambdaSchedule);
+      System.out.println("lambdaDecay = " + lambdaDecay);
+      System.out.println("lambdaStep = " + lambdaStep);
+      System.out.println("lambdaMin = " + lambdaMin);
+      System.out.println("lambdaPeriodGrowth = " + lambdaPeriodGrowth);
+      System.out.println("lambdaIncrease = " + lambdaIncrease);
+      System.out.println("lambdaDecrease = " + lambdaDecrease);
+      System.out.println("validationFraction = " + validationFraction);
+      System.out.println("validationCases = " + validationCases);
+      System.out.println("validationInterval = " + validationInterval);
+      System.out.println("patience = " + patience);
       System.out.println("weightsFilePath = " + weightsFilePath);
       System.out.println("truthTableFilePath = " + truthTableFilePath);
+      System.out.println("kernels = " + kernels.getClass().getName());
 
-      for (testCase = 0; testCase < numberOfCases; testCase++)
+      for (testCase = 0; testCase < numberOfCases && testCases != null; testCase++)
       {
          for (k = 0; k < layers[INPUTLAYER]; k++)
          {
@@ -0,0 +1,197 @@
+/**
+ * This abstract class describes how the network turns a gradient into a weight update. The gradient g of a weight has the
+ * same sign as the change that lowers the error, so plain gradient descent adds lambda * g to the weight; the other
+ * optimizers keep running averages of past gradients, called moments, and use them to take better steps. Each moment is
+ * a flat array laid out exactly like the weights, so an update walks the weights and every moment with unit stride and
+ * checkpoints can save the moments in the weights file format.
+ *
+ * The network calls beginStep once per weight update, that is once per test case when training one case at a time and
+ * once per mini-batch otherwise, and then step over every run of weights the update covers. Every optimizer updates each
+ * weight from its own gradient and moments only, so any split of the weights into runs, such as the stripes of the
+ * ParallelTrainer, gives the same result.
+ *
+ * Table of Contents
+ *  • public Optimizer(int layers[], int moments)
+ *  • public void beginStep(double lambda)
+ *  • public boolean isPlain()
+ *  • public abstract void step(int layer, double w[], int off, double g[], int gOff, int len)
+ *  • public void stepRow(int layer, double w[], int off, double a[], double psi, int len)
+ *  • public double[][][] moments()
+ *  • public long getSteps()
+ *  • public void setSteps(long steps)
+ *  • public static Optimizer create(String name, int layers[], Kernels kernels, double momentum, double rmsDecay,
+ *                                   double beta1, double beta2, double epsilon)
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 20 May 2024
+ */
+public abstract class Optimizer
+{
+   static final String SGD = "SGD";
+   static final String MOMENTUM = "MOMENTUM";
+   static final String NESTEROV = "NESTEROV";
+   static final String RMSPROP = "RMSPROP";
+   static final String ADAM = "ADAM";
+
+   int layers[];
+   double state[][][];
+   double row[];
+   double lambda;
+   long steps;
+
+/**
+ * Constructor for the Optimizer class that allocates the moments, all starting at zero
+ *
+ * @param layers   the number of neurons in every layer of the network
+ * @param moments  the number of running averages kept for every weight
+ */
+   public Optimizer(int layers[], int moments)
+   {
+      int k, alpha, widest = 0;
+
+      this.layers = layers;
+
+      state = new double[moments][layers.length - 1][];
+      for (k = 0; k < moments; k++)
+      {
+         for (alpha = 0; alpha < layers.length - 1; alpha++)
+         {
+            state[k][alpha] = new double[layers[alpha] * layers[alpha + 1]];
+         }
+      }
+
+      for (alpha = 0; alpha < layers.length; alpha++)
+      {
+         widest = Math.max(widest, layers[alpha]);
+      }
+      row = new double[widest];
+   } // public Optimizer(int layers[], int moments)
+
+/**
+ * Starts one weight update of the whole network
+ *
+ * @param lambda  the learning rate of this update
+ */
+   public void beginStep(double lambda)
+   {
+      this.lambda = lambda;
+      steps++;
+   }
+
+/**
+ * Tells whether the update is plain gradient descent, w += lambda * g, which training one case at a time fuses into the
+ * backpropagation row kernels instead of calling stepRow
+ *
+ * @return  true for plain gradient descent
+ */
+   public boolean isPlain()
+   {
+      return false;
+   }
+
+/**
+ * Updates len weights of one layer from their gradients
+ *
+ * @param layer  the index of the weight array, so that weights[layer] is w
+ * @param w      the flat weights of the layer
+ * @param off    the index of the first weight to update, in w and in every moment
+ * @param g      the gradients
+ * @param gOff   the index of the gradient of the first weight
+ * @param len    the number of weights to update
+ */
+   public abstract void step(int layer, double w[], int off, double g[], int gOff, int len);
+
+/**
+ * Updates the weights feeding one neuron while training one case at a time, where the gradient of the weight from
+ * neuron i of the previous layer is a[i] * psi. The gradients are put in a scratch row first, so only one thread may call
+ * this at a time.
+ *
+ * @param layer  the index of the weight array, so that weights[layer] is w
+ * @param w      the flat weights of the layer
+ * @param off    the index of the first weight in the row
+ * @param a      the activations of the previous layer
+ * @param psi    the psi value of the neuron the row feeds
+ * @param len    the length of the row
+ */
+   public void stepRow(int layer, double w[], int off, double a[], double psi, int len)
+   {
+      int i;
+
+      for (i = 0; i < len; i++)
+      {
+         row[i] = a[i] * psi;
+      }
+      step(layer, w, off, row, 0, len);
+   } // public void stepRow(int layer, double w[], int off, double a[], double psi, int len)
+
+/**
+ * Gets the moments, so that checkpoints can save and restore them
+ *
+ * @return  the moments, each laid out like the weights
+ */
+   public double[][][] moments()
+   {
+      return state;
+   }
+
+/**
+ * Gets the number of updates taken so far
+ *
+ * @return  the number of calls to beginStep
+ */
+   public long getSteps()
+   {
+      return steps;
+   }
+
+/**
+ * Sets the number of updates taken so far, when resuming from a checkpoint
+ *
+ * @param steps  the number of updates
+ */
+   public void setSteps(long steps)
+   {
+      this.steps = steps;
+   }
+
+/**
+ * Creates the optimizer with the given configuration name. An unknown name falls back to plain gradient descent.
+ *
+ * @param name      SGD, MOMENTUM, NESTEROV, RMSPROP or ADAM
+ * @param layers    the number of neurons in every layer of the network
+ * @param kernels   the kernels used for plain gradient descent
+ * @param momentum  the decay of the velocity for MOMENTUM and NESTEROV
+ * @param rmsDecay  the decay of the mean squared gradient for RMSPROP
+ * @param beta1     the decay of the mean gradient for ADAM
+ * @param beta2     the decay of the mean squared gradient for ADAM
+ * @param epsilon   the term that keeps RMSPROP and ADAM from dividing by zero
+ * @return          the optimizer to use
+ */
+   public static Optimizer create(String name, int layers[], Kernels kernels, double momentum, double rmsDecay,
+                                  double beta1, double beta2, double epsilon)
+   {
+      Optimizer optimizer;
+
+      if (name.equals(MOMENTUM))
+         optimizer = new Momentum(layers, momentum, false);
+
+      else if (name.equals(NESTEROV))
+         optimizer = new Momentum(layers, momentum, true);
+
+      else if (name.equals(RMSPROP))
+         optimizer = new RMSProp(layers, rmsDecay, epsilon);
+
+      else if (name.equals(ADAM))
+         optimizer = new Adam(layers, beta1, beta2, epsilon);
+
+      else
+      {
+         if (!name.equals(SGD))
+            System.out.println("Unknown optimizer " + name + ", using SGD");
+
+         optimizer = new SGD(layers, kernels);
+      }
+      return optimizer;
+   } // public static Optimizer create(String name, int layers[], Kernels kernels, double momentum, ...)
+} // public abstract class Optimizer
@@ -0,0 +1,101 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A ParallelRange splits a range of indices, such as the output neurons of one layer, across the cores of the common
+ * ForkJoin pool. The range is halved recursively until each piece is no larger than the grain, and every piece is handed to
+ * the body. The body must only write to indices inside the piece it is given, so the pieces can run in any order.
+ * 
+ * Table of Contents
+ *  • public ParallelRange(int from, int to, int grain, Body body)
+ *  • protected void compute()
+ *  • public static void forEach(int from, int to, Body body)
+ *  • public static boolean isUseful()
+ * 
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 7 May 2024
+ */
+public class ParallelRange extends RecursiveAction
+{
+   private static final long serialVersionUID = 1L;
+   static final int TASKS_PER_CORE = 4;
+
+   int from;
+   int to;
+   int grain;
+   Body body;
+
+/**
+ * The work done on one piece of the range
+ */
+   public interface Body
+   {
+/**
+ * Does the work for every index from from (inclusive) to to (exclusive)
+ * 
+ * @param from  the first index of the piece
+ * @param to    one past the last index of the piece
+ */
+      void run(int from, int to);
+   } // public interface Body
+
+/**
+ * Constructor for the ParallelRange class
+ * 
+ * @param from   the first index of the range
+ * @param to     one past the last index of the range
+ * @param grain  the largest piece that is not split any further
+ * @param body   the work done on each piece
+ */
+   public ParallelRange(int from, int to, int grain, Body body)
+   {
+      this.from = from;
+      this.to = to;
+      this.grain = grain;
+      this.body = body;
+   }
+
+/**
+ * Runs the body on the range if it is small enough, otherwise splits the range in half and runs both halves in parallel
+ */
+   protected void compute()
+   {
+      int mid;
+
+      if (to - from <= grain)
+      {
+         body.run(from, to);
+      }
+      else
+      {
+         mid = (from + to) >>> 1;
+         invokeAll(new ParallelRange(from, mid, grain, body), new ParallelRange(mid, to, grain, body));
+      }
+   } // protected void compute()
+
+/**
+ * Runs the body over the whole range on the common pool, using a grain that gives every core a few pieces so that uneven
+ * pieces still balance out
+ * 
+ * @param from  the first index of the range
+ * @param to    one past the last index of the range
+ * @param body  the work done on each piece
+ */
+   public static void forEach(int from, int to, Body body)
+   {
+      int grain = Math.max(1, (to - from) / (TASKS_PER_CORE * ForkJoinPool.getCommonPoolParallelism()));
+
+      ForkJoinPool.commonPool().invoke(new ParallelRange(from, to, grain, body));
+   }
+
+/**
+ * Tells whether splitting work across the common pool can help, i.e. whether it has more than one worker
+ * 
+ * @return  true if the common pool runs more than one task at a time
+ */
+   public static boolean isUseful()
+   {
+      return ForkJoinPool.getCommonPoolParallelism() > 1;
+   }
+} // public class ParallelRange extends RecursiveAction
@@ -0,0 +1,196 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The ParallelTrainer trains the network on several cores at once by splitting every mini-batch across a fixed pool of
+ * worker threads. Each worker owns a MiniBatch, i.e. its own activations, theta, psi and omega scratch matrices and its own
+ * gradient buffer, and computes the summed gradients of a contiguous slice of the batch. The gradient buffers are then
+ * reduced in stripes: worker t adds stripe t of every other worker's gradients into worker 0's buffer, always in worker
+ * order, and has the optimizer apply that stripe to the shared weights. Because the slices, the stripes and the order of
+ * every sum depend only on the batch and the number of threads, training is deterministic for a fixed set of starting
+ * weights and thread count.
+ * 
+ * Table of Contents
+ *  • public ParallelTrainer(int layers[], int batchSize, int numThreads, ActivationFunction act, Kernels kernels)
+ *  • public double trainBatch(double weights[][], Optimizer optimizer, double testCases[][], double trueOutputs[][],
+ *                             int first, int count, boolean exactError)
+ *  • public void runAll(List<Callable<Double>> tasks)
+ *  • public void shutdown()
+ * 
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 6 May 2024
+ */
+public class ParallelTrainer
+{
+   int n;
+   int layers[];
+   int numThreads;
+
+   MiniBatch workers[];
+   double workerErrors[];
+
+   Kernels kernels;
+   ExecutorService pool;
+
+/**
+ * Constructor for the ParallelTrainer class that starts the worker threads and allocates each worker's scratch arrays,
+ * large enough for its share of a batch of batchSize test cases
+ * 
+ * @param layers      the number of neurons in every layer of the network
+ * @param batchSize   the largest number of test cases in one batch
+ * @param numThreads  the number of worker threads
+ * @param act         the activation function of the network
+ * @param kernels     the kernels used for the matrix products
+ */
+   public ParallelTrainer(int layers[], int batchSize, int numThreads, ActivationFunction act, Kernels kernels)
+   {
+      int t;
+
+      this.layers = layers;
+      this.numThreads = numThreads;
+      this.kernels = kernels;
+      n = layers.length;
+
+      workers = new MiniBatch[numThreads];
+      for (t = 0; t < numThreads; t++)
+      {
+         workers[t] = new MiniBatch(layers, (batchSize + numThreads - 1) / numThreads, act, kernels);
+      }
+      workerErrors = new double[numThreads];
+
+      pool = Executors.newFixedThreadPool(numThreads, r -> {
+         Thread thread = new Thread(r, "NLayer worker");
+         thread.setDaemon(true);
+         return thread;
+      });
+   } // public ParallelTrainer(int layers[], int batchSize, int numThreads, ActivationFunction act, Kernels kernels)
+
+/**
+ * Trains the network on count test cases, starting at first, as one mini-batch split across the workers. Every worker
+ * sums the gradients of its slice at the current weights, the gradients are reduced, and the optimizer applies them to the
+ * weights one stripe per worker. For an exact error every worker then runs its slice forward again with the updated
+ * weights; otherwise the error comes from the forward pass used for the gradients.
+ * 
+ * @param weights      the flat weights of the network, updated in place
+ * @param optimizer    the optimizer that applies the gradients, whose beginStep has been called for this batch
+ * @param testCases    the inputs of every test case
+ * @param trueOutputs  the expected outputs of every test case
+ * @param first        the index of the first test case in the batch
+ * @param count        the number of test cases in the batch
+ * @param exactError   whether the error is found with the updated weights
+ * @return             the total error of the batch
+ */
+   public double trainBatch(double weights[][], Optimizer optimizer, double testCases[][], double trueOutputs[][],
+                            int first, int count, boolean exactError)
+   {
+      int t;
+      double error = 0.0;
+      List<Callable<Double>> tasks = new ArrayList<Callable<Double>>();
+
+      for (t = 0; t < numThreads; t++)
+      {
+         final MiniBatch worker = workers[t];
+         final int index = t;
+         final int from = first + t * count / numThreads;
+         final int to = first + (t + 1) * count / numThreads;
+
+         tasks.add(() -> {
+            worker.clearGradients();
+            worker.load(testCases, trueOutputs, from, to - from);
+            worker.forward(weights);
+            workerErrors[index] = worker.error();
+            worker.accumulateGradients(weights);
+            return workerErrors[index];
+         });
+      } // for (t = 0; t < numThreads; t++)
+      runAll(tasks);
+
+      tasks.clear();
+      for (t = 0; t < numThreads; t++)
+      {
+         final int stripe = t;
+
+         tasks.add(() -> {
+            int alpha, other, from, to;
+            double sum[];
+
+            for (alpha = 0; alpha < n - 1; alpha++)
+            {
+               sum = workers[0].gradients[alpha];
+               from = (int) ((long) stripe * sum.length / numThreads);
+               to = (int) ((long) (stripe + 1) * sum.length / numThreads);
+
+               for (other = 1; other < numThreads; other++)
+               {
+                  kernels.axpy(1.0, workers[other].gradients[alpha], from, sum, from, to - from);
+               }
+               optimizer.step(alpha, weights[alpha], from, sum, from, to - from);
+            } // for (alpha = 0; alpha < n - 1; alpha++)
+            return 0.0;
+         });
+      } // for (t = 0; t < numThreads; t++)
+      runAll(tasks);
+
+      if (exactError)
+      {
+         tasks.clear();
+         for (t = 0; t < numThreads; t++)
+         {
+            final MiniBatch worker = workers[t];
+            final int index = t;
+
+            tasks.add(() -> {
+               worker.forward(weights);
+               workerErrors[index] = worker.error();
+               return workerErrors[index];
+            });
+         } // for (t = 0; t < numThreads; t++)
+         runAll(tasks);
+      } // if (exactError)
+
+      for (t = 0; t < numThreads; t++)
+      {
+         error += workerErrors[t];
+      }
+      return error;
+   } // public double trainBatch(double weights[][], Optimizer optimizer, ...)
+
+/**
+ * Runs every task on the worker threads and waits for all of them to finish
+ * 
+ * @param tasks  the tasks to run, one per worker
+ */
+   public void runAll(List<Callable<Double>> tasks)
+   {
+      try
+      {
+         for (Future<Double> result : pool.invokeAll(tasks))
+         {
+            result.get();
+         }
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException("Interrupted while training in parallel", e);
+      }
+      catch (ExecutionException e)
+      {
+         throw new RuntimeException("A training worker failed", e.getCause());
+      }
+   } // public void runAll(List<Callable<Double>> tasks)
+
+/**
+ * Stops the worker threads once training has finished
+ */
+   public void shutdown()
+   {
+      pool.shutdown();
+   }
+} // public class ParallelTrainer
@@ -0,0 +1,70 @@
+/**
+ * RMSProp keeps one moment, the running mean s of every weight's squared gradient: s = rho * s + (1 - rho) * g^2. Each
+ * weight moves by lambda * g / (sqrt(s) + epsilon), so every weight takes steps of about lambda whatever the scale of its
+ * gradients. Weights whose gradients are tiny, such as those far from the output of a deep sigmoid network, then learn
+ * as fast as the rest.
+ *
+ * Table of Contents
+ *  • public RMSProp(int layers[], double rho, double epsilon)
+ *  • public void step(int layer, double w[], int off, double g[], int gOff, int len)
+ *  • public String toString()
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 20 May 2024
+ */
+public class RMSProp extends Optimizer
+{
+   static final int MEAN_SQUARE = 0;
+
+   double rho;
+   double epsilon;
+
+/**
+ * Constructor for the RMSProp class
+ *
+ * @param layers   the number of neurons in every layer of the network
+ * @param rho      the decay of the mean squared gradient, usually 0.9
+ * @param epsilon  the term that keeps the step finite when the mean squared gradient is zero
+ */
+   public RMSProp(int layers[], double rho, double epsilon)
+   {
+      super(layers, 1);
+      this.rho = rho;
+      this.epsilon = epsilon;
+   }
+
+/**
+ * Updates len weights of one layer and their mean squared gradients
+ *
+ * @param layer  the index of the weight array, so that weights[layer] is w
+ * @param w      the flat weights of the layer
+ * @param off    the index of the first weight to update, in w and in the mean squared gradient
+ * @param g      the gradients
+ * @param gOff   the index of the gradient of the first weight
+ * @param len    the number of weights to update
+ */
+   public void step(int layer, double w[], int off, double g[], int gOff, int len)
+   {
+      int i;
+      double grad;
+      double s[] = state[MEAN_SQUARE][layer];
+
+      for (i = 0; i < len; i++)
+      {
+         grad = g[gOff + i];
+         s[off + i] = rho * s[off + i] + (1.0 - rho) * grad * grad;
+         w[off + i] += lambda * grad / (Math.sqrt(s[off + i]) + epsilon);
+      }
+   } // public void step(int layer, double w[], int off, double g[], int gOff, int len)
+
+/**
+ * Describes the optimizer for the configuration echo
+ *
+ * @return  the name and parameters of the optimizer
+ */
+   public String toString()
+   {
+      return RMSPROP + " (decay " + rho + ", epsilon " + epsilon + ")";
+   }
+} // public class RMSProp extends Optimizer
@@ -0,0 +1,109 @@
+/**
+ * The rectified linear unit is a possible activation function used for the network: f(x) = max(0, x). It needs no
+ * exponential and does not saturate for positive x, but its outputs are unbounded, so it is meant for hidden layers. The
+ * derivative at 0 is taken to be 0.
+ * 
+ * Table of Contents
+ *  • public double f(double x)
+ *  • public double fPrime(double x)
+ *  • public double fPrimeFromOutput(double x, double fx)
+ *  • public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+ *  • public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+ *  • public void apply(double in[], double out[], int from, int to)
+ * 
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 13 May 2024
+ */
+public class ReLU extends ActivationFunction
+{
+/**
+ * The activation function (rectified linear unit) used for the network
+ * 
+ * @param x activations in previous layer * weights, or uppercase theta
+ * @return  the value of the activation
+ */
+   public double f(double x)
+   {
+      return Math.max(0.0, x);
+   }
+
+/**
+ * The derivative of the rectified linear unit: 1 for positive x and 0 otherwise
+ * 
+ * @param x  activations in previous layer * weights, or uppercase theta
+ * @return  the change in the activation function
+ */
+   public double fPrime(double x)
+   {
+      return x > 0.0 ? 1.0 : 0.0;
+   }
+
+/**
+ * The derivative of the rectified linear unit from its output, which is positive exactly when x is
+ * 
+ * @param x   activations in previous layer * weights, or uppercase theta
+ * @param fx  the value of the activation, f(x)
+ * @return    the change in the activation function
+ */
+   public double fPrimeFromOutput(double x, double fx)
+   {
+      return fx > 0.0 ? 1.0 : 0.0;
+   }
+
+/**
+ * The derivative of the rectified linear unit for a run of neurons from their activations
+ * 
+ * @param x     the theta values of the neurons
+ * @param fx    the activations of the neurons, f(x)
+ * @param out   receives the derivatives
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = fx[i] > 0.0 ? 1.0 : 0.0;
+      }
+   } // public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+
+/**
+ * The derivative of the rectified linear unit for a run of single-precision neurons from their activations
+ * 
+ * @param x     the theta values of the neurons
+ * @param fx    the activations of the neurons, f(x)
+ * @param out   receives the derivatives
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = fx[i] > 0.0f ? 1.0f : 0.0f;
+      }
+   } // public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+
+/**
+ * Applies the rectified linear unit to a run of neurons
+ * 
+ * @param in    the theta values of the neurons
+ * @param out   receives the activations, and may be the same array as in
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void apply(double in[], double out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = Math.max(0.0, in[i]);
+      }
+   } // public void apply(double in[], double out[], int from, int to)
+} // public class ReLU extends ActivationFunction
@@ -0,0 +1,66 @@
+/**
+ * Plain stochastic gradient descent, which moves every weight by lambda times its gradient and keeps no moments. It is
+ * the default optimizer. Its update is a single axpy over the weights, and when training one case at a time the network
+ * fuses it into the backpropagation row kernels instead of calling stepRow.
+ *
+ * Table of Contents
+ *  • public SGD(int layers[], Kernels kernels)
+ *  • public boolean isPlain()
+ *  • public void step(int layer, double w[], int off, double g[], int gOff, int len)
+ *  • public String toString()
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 20 May 2024
+ */
+public class SGD extends Optimizer
+{
+   Kernels kernels;
+
+/**
+ * Constructor for the SGD class
+ *
+ * @param layers   the number of neurons in every layer of the network
+ * @param kernels  the kernels used for the update
+ */
+   public SGD(int layers[], Kernels kernels)
+   {
+      super(layers, 0);
+      this.kernels = kernels;
+   }
+
+/**
+ * Tells the network that this update may be fused into backpropagation
+ *
+ * @return  true
+ */
+   public boolean isPlain()
+   {
+      return true;
+   }
+
+/**
+ * Updates len weights of one layer as w += lambda * g
+ *
+ * @param layer  the index of the weight array, so that weights[layer] is w
+ * @param w      the flat weights of the layer
+ * @param off    the index of the first weight to update
+ * @param g      the gradients
+ * @param gOff   the index of the gradient of the first weight
+ * @param len    the number of weights to update
+ */
+   public void step(int layer, double w[], int off, double g[], int gOff, int len)
+   {
+      kernels.axpy(lambda, g, gOff, w, off, len);
+   }
+
+/**
+ * Describes the optimizer for the configuration echo
+ *
+ * @return  the name of the optimizer
+ */
+   public String toString()
+   {
+      return SGD;
+   }
+} // public class SGD extends Optimizer
@@ -0,0 +1,167 @@
+/**
+ * The scalar kernels are plain loops over the flat weight arrays. They run on every JVM and are the fallback whenever the
+ * vector kernels are not selected or not available.
+ * 
+ * Table of Contents
+ *  • public double dot(double[] x, int xOff, double[] w, int wOff, int len)
+ *  • public void backpropRow(double[] w, int wOff, double[] a, double[] omega, double psi, double lambda, int len)
+ *  • public void updateRow(double[] w, int wOff, double[] a, double psi, double lambda, int len)
+ *  • public void axpy(double s, double[] x, int xOff, double[] y, int yOff, int len)
+ *  • public float dot(float[] x, int xOff, float[] w, int wOff, int len)
+ *  • public void backpropRow(float[] w, int wOff, float[] a, float[] omega, float psi, float lambda, int len)
+ *  • public void updateRow(float[] w, int wOff, float[] a, float psi, float lambda, int len)
+ * 
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 4 May 2024
+ */
+public class ScalarKernels extends Kernels
+{
+/**
+ * Computes the dot product of len elements of x, starting at xOff, with len elements of w, starting at wOff
+ * 
+ * @param x     the activations of the previous layer
+ * @param xOff  the index of the first activation
+ * @param w     the flat weight array
+ * @param wOff  the index of the first weight in the row
+ * @param len   the number of elements to multiply
+ * @return      the sum of the products, or uppercase theta
+ */
+   public double dot(double[] x, int xOff, double[] w, int wOff, int len)
+   {
+      int i;
+      double sum = 0.0;
+
+      for (i = 0; i < len; i++)
+      {
+         sum += x[xOff + i] * w[wOff + i];
+      }
+      return sum;
+   } // public double dot(double[] x, int xOff, double[] w, int wOff, int len)
+
+/**
+ * Accumulates the contribution of one neuron's psi into omega and updates the row of weights feeding that neuron
+ * 
+ * @param w       the flat weight array
+ * @param wOff    the index of the first weight in the row
+ * @param a       the activations of the layer feeding the row
+ * @param omega   the omega values of the layer feeding the row
+ * @param psi     the psi value of the neuron the row feeds
+ * @param lambda  the learning rate
+ * @param len     the length of the row
+ */
+   public void backpropRow(double[] w, int wOff, double[] a, double[] omega, double psi, double lambda, int len)
+   {
+      int i;
+
+      for (i = 0; i < len; i++)
+      {
+         omega[i] += psi * w[wOff + i];
+         w[wOff + i] += lambda * a[i] * psi;
+      }
+   } // public void backpropRow(double[] w, int wOff, double[] a, double[] omega, double psi, double lambda, int len)
+
+/**
+ * Updates the row of weights feeding one neuron
+ * 
+ * @param w       the flat weight array
+ * @param wOff    the index of the first weight in the row
+ * @param a       the activations of the layer feeding the row
+ * @param psi     the psi value of the neuron the row feeds
+ * @param lambda  the learning rate
+ * @param len     the length of the row
+ */
+   public void updateRow(double[] w, int wOff, double[] a, double psi, double lambda, int len)
+   {
+      int i;
+
+      for (i = 0; i < len; i++)
+      {
+         w[wOff + i] += lambda * a[i] * psi;
+      }
+   } // public void updateRow(double[] w, int wOff, double[] a, double psi, double lambda, int len)
+
+/**
+ * Adds s times len elements of x, starting at xOff, to len elements of y, starting at yOff
+ * 
+ * @param s     the scale applied to x
+ * @param x     the array that is scaled and added
+ * @param xOff  the index of the first element of x
+ * @param y     the array that is added to
+ * @param yOff  the index of the first element of y
+ * @param len   the number of elements to add
+ */
+   public void axpy(double s, double[] x, int xOff, double[] y, int yOff, int len)
+   {
+      int i;
+
+      for (i = 0; i < len; i++)
+      {
+         y[yOff + i] += s * x[xOff + i];
+      }
+   } // public void axpy(double s, double[] x, int xOff, double[] y, int yOff, int len)
+
+/**
+ * Computes the single-precision dot product of len elements of x, starting at xOff, with len elements of w, starting at wOff
+ * 
+ * @param x     the activations of the previous layer
+ * @param xOff  the index of the first activation
+ * @param w     the flat weight array
+ * @param wOff  the index of the first weight in the row
+ * @param len   the number of elements to multiply
+ * @return      the sum of the products, or uppercase theta
+ */
+   public float dot(float[] x, int xOff, float[] w, int wOff, int len)
+   {
+      int i;
+      float sum = 0.0f;
+
+      for (i = 0; i < len; i++)
+      {
+         sum += x[xOff + i] * w[wOff + i];
+      }
+      return sum;
+   } // public float dot(float[] x, int xOff, float[] w, int wOff, int len)
+
+/**
+ * Single-precision version of backpropRow
+ * 
+ * @param w       the flat weight array
+ * @param wOff    the index of the first weight in the row
+ * @param a       the activations of the layer feeding the row
+ * @param omega   the omega values of the layer feeding the row
+ * @param psi     the psi value of the neuron the row feeds
+ * @param lambda  the learning rate
+ * @param len     the length of the row
+ */
+   public void backpropRow(float[] w, int wOff, float[] a, float[] omega, float psi, float lambda, int len)
+   {
+      int i;
+
+      for (i = 0; i < len; i++)
+      {
+         omega[i] += psi * w[wOff + i];
+         w[wOff + i] += lambda * a[i] * psi;
+      }
+   } // public void backpropRow(float[] w, int wOff, float[] a, float[] omega, float psi, float lambda, int len)
+
+/**
+ * Single-precision version of updateRow
+ * 
+ * @param w       the flat weight array
+ * @param wOff    the index of the first weight in the row
+ * @param a       the activations of the layer feeding the row
+ * @param psi     the psi value of the neuron the row feeds
+ * @param lambda  the learning rate
+ * @param len     the length of the row
+ */
+   public void updateRow(float[] w, int wOff, float[] a, float psi, float lambda, int len)
+   {
+      int i;
+
+      for (i = 0; i < len; i++)
+      {
+         w[wOff + i] += lambda * a[i] * psi;
+      }
+   } // public void updateRow(float[] w, int wOff, float[] a, float psi, float lambda, int len)
+} // public class ScalarKernels extends Kernels
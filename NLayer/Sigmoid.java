@@ -5,6 +5,10 @@
  * Table of Contents
  *  • public double f(double x)
  *  • public double fPrime(double x)
+ *  • public double fPrimeFromOutput(double x, double fx)
+ *  • public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+ *  • public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+ *  • public void apply(double in[], double out[], int from, int to)
  * 
  * @author Kyle Li
  * @version 30 April 2024
@@ -35,4 +39,72 @@ public class Sigmoid extends ActivationFunction
       double res = f(x);
       return res * (1.0 - res);
    }
+
+/**
+ * The derivative of the sigmoid from its output, f(x) * (1 - f(x)), which needs no exponential
+ * 
+ * @param x   activations in previous layer * weights, or uppercase theta
+ * @param fx  the value of the activation, f(x)
+ * @return    the change in the activation function
+ */
+   public double fPrimeFromOutput(double x, double fx)
+   {
+      return fx * (1.0 - fx);
+   }
+
+/**
+ * The derivative of the sigmoid for a run of neurons from their activations, as one loop with no calls in it
+ * 
+ * @param x     the theta values of the neurons
+ * @param fx    the activations of the neurons, f(x)
+ * @param out   receives the derivatives
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = fx[i] * (1.0 - fx[i]);
+      }
+   } // public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+
+/**
+ * The derivative of the sigmoid for a run of single-precision neurons from their activations
+ * 
+ * @param x     the theta values of the neurons
+ * @param fx    the activations of the neurons, f(x)
+ * @param out   receives the derivatives
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = fx[i] * (1.0f - fx[i]);
+      }
+   } // public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+
+/**
+ * Applies the sigmoid to a run of neurons
+ * 
+ * @param in    the theta values of the neurons
+ * @param out   receives the activations, and may be the same array as in
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void apply(double in[], double out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = 1.0 / (1.0 + Math.exp(-in[i]));
+      }
+   } // public void apply(double in[], double out[], int from, int to)
 } // public class Sigmoid extends ActivationFunction
@@ -0,0 +1,134 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * SplitMix64 is the generator behind java.util.SplittableRandom, written out so that its state can be read and restored.
+ * Each value is the next multiple of gamma added to seed, put through a 64-bit mixing function. The whole state is those
+ * two longs, so a training run can save it in a checkpoint and a resumed run goes on drawing exactly the numbers it would
+ * have drawn. split() derives an independent generator, which lets each layer or thread draw from a stream of its own.
+ *
+ * Table of Contents
+ *  • public SplitMix64(long seed)
+ *  • public SplitMix64(long seed, long gamma)
+ *  • public long nextLong()
+ *  • public SplitMix64 split()
+ *  • public long getSeed()
+ *  • public long getGamma()
+ *  • public void setState(long seed, long gamma)
+ *  • public static long mix64(long z)
+ *  • public static long mixGamma(long z)
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 19 May 2024
+ */
+public class SplitMix64 implements RandomGenerator
+{
+   static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+   long seed;
+   long gamma;
+
+/**
+ * Constructor for the SplitMix64 class that starts a root generator from a seed
+ *
+ * @param seed  the seed
+ */
+   public SplitMix64(long seed)
+   {
+      this(seed, GOLDEN_GAMMA);
+   }
+
+/**
+ * Constructor for the SplitMix64 class that restores a generator from its state
+ *
+ * @param seed   the seed, as returned by getSeed
+ * @param gamma  the gamma, as returned by getGamma, which must be odd
+ */
+   public SplitMix64(long seed, long gamma)
+   {
+      setState(seed, gamma);
+   }
+
+/**
+ * Gets the next 64 random bits
+ *
+ * @return  the next value
+ */
+   public long nextLong()
+   {
+      seed += gamma;
+      return mix64(seed);
+   }
+
+/**
+ * Derives a new generator whose values are independent of this one's, advancing this generator by two values
+ *
+ * @return  the new generator
+ */
+   public SplitMix64 split()
+   {
+      return new SplitMix64(nextLong(), mixGamma(nextLong()));
+   }
+
+/**
+ * Gets the seed part of the state
+ *
+ * @return  the seed
+ */
+   public long getSeed()
+   {
+      return seed;
+   }
+
+/**
+ * Gets the gamma part of the state
+ *
+ * @return  the gamma
+ */
+   public long getGamma()
+   {
+      return gamma;
+   }
+
+/**
+ * Restores the state saved by getSeed and getGamma
+ *
+ * @param seed   the seed
+ * @param gamma  the gamma, which must be odd
+ */
+   public void setState(long seed, long gamma)
+   {
+      if ((gamma & 1L) == 0)
+         throw new IllegalArgumentException("gamma must be odd");
+
+      this.seed = seed;
+      this.gamma = gamma;
+   } // public void setState(long seed, long gamma)
+
+/**
+ * Mixes the bits of a value (Stafford's variant 13 of the MurmurHash3 finalizer)
+ *
+ * @param z  the value
+ * @return   the mixed value
+ */
+   public static long mix64(long z)
+   {
+      z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+      z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+      return z ^ (z >>> 31);
+   }
+
+/**
+ * Turns a value into a gamma for a split generator: odd, and with enough bit transitions to mix well
+ *
+ * @param z  the value
+ * @return   the gamma
+ */
+   public static long mixGamma(long z)
+   {
+      z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+      z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+      z = (z ^ (z >>> 33)) | 1L;
+      return (Long.bitCount(z ^ (z >>> 1)) < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+   } // public static long mixGamma(long z)
+} // public class SplitMix64
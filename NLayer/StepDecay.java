@@ -0,0 +1,53 @@
+/**
+ * Step decay keeps the learning rate constant for step iterations at a time and multiplies it by decay at the end of
+ * each, so lambda, lambda * decay, lambda * decay^2 and so on.
+ *
+ * Table of Contents
+ *  • public StepDecay(double lambda, double decay, int step)
+ *  • public double rate(int iteration)
+ *  • public String toString()
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 21 May 2024
+ */
+public class StepDecay extends LearningRateSchedule
+{
+   double decay;
+   int step;
+
+/**
+ * Constructor for the StepDecay class
+ *
+ * @param lambda  the learning rate of the first step
+ * @param decay   the factor the rate is multiplied by after every step
+ * @param step    the number of iterations in every step, at least 1
+ */
+   public StepDecay(double lambda, double decay, int step)
+   {
+      super(lambda);
+      this.decay = decay;
+      this.step = Math.max(step, 1);
+   }
+
+/**
+ * Gives the learning rate of an iteration, lambda * decay^(iteration / step) rounded down to whole steps
+ *
+ * @param iteration  the number of iterations finished before this one
+ * @return           the learning rate
+ */
+   public double rate(int iteration)
+   {
+      return lambda * Math.pow(decay, iteration / step);
+   }
+
+/**
+ * Describes the schedule for the configuration echo
+ *
+ * @return  the name and parameters of the schedule
+ */
+   public String toString()
+   {
+      return STEP + " (times " + decay + " every " + step + " iterations)";
+   }
+} // public class StepDecay extends LearningRateSchedule
@@ -0,0 +1,231 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A StreamingDataSource reads a binary dataset (see DatasetFile) from disk one chunk of test cases at a time, so a network
+ * can train on more images than fit in the heap. A background thread reads the chunks in order and keeps up to readAhead
+ * of them waiting while the network trains on the current one, then carries straight on into the next epoch. Only
+ * readAhead + 1 chunks are ever allocated: a chunk the network is done with is handed back to the reader and refilled.
+ * A data source may also serve only a run of the dataset's test cases, which is how a validation split is held out of
+ * a streamed dataset.
+ *
+ * Table of Contents
+ *  • public StreamingDataSource(String path, int numberOfCases, int inputs, int outputs, int chunkCases, int readAhead)
+ *  • public StreamingDataSource(String path, int numberOfCases, int inputs, int outputs, int chunkCases, int readAhead,
+ *                              int firstCase, int cases)
+ *  • public void readEpochs()
+ *  • public void rewind()
+ *  • public Chunk next()
+ *  • public Chunk take()
+ *  • public void close()
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 11 May 2024
+ */
+public class StreamingDataSource extends DataSource
+{
+   String path;
+   FileChannel channel;
+   ByteBuffer header;
+   ByteBuffer rows;
+   int chunkCases;
+   int firstCase;
+
+   BlockingQueue<Chunk> free;
+   BlockingQueue<Chunk> full;
+   Chunk endOfEpoch;
+   Chunk failed;
+   IOException failure;
+
+   Chunk current;
+   boolean atEnd;
+   Thread reader;
+
+/**
+ * Constructor for the StreamingDataSource class that serves every test case of the dataset
+ *
+ * @param path           the path to the binary dataset
+ * @param numberOfCases  the number of test cases the network expects
+ * @param inputs         the number of inputs the network expects
+ * @param outputs        the number of outputs the network expects
+ * @param chunkCases     the number of test cases in every chunk
+ * @param readAhead      the number of chunks read ahead of the one in use
+ * @throws IOException may be thrown when the dataset cannot be read or does not match the network
+ */
+   public StreamingDataSource(String path, int numberOfCases, int inputs, int outputs, int chunkCases, int readAhead)
+      throws IOException
+   {
+      this(path, numberOfCases, inputs, outputs, chunkCases, readAhead, 0, numberOfCases);
+   }
+
+/**
+ * Constructor for the StreamingDataSource class that checks the dataset, allocates the chunks and starts reading ahead
+ * of a run of its test cases
+ *
+ * @param path           the path to the binary dataset
+ * @param numberOfCases  the number of test cases the network expects in the whole dataset
+ * @param inputs         the number of inputs the network expects
+ * @param outputs        the number of outputs the network expects
+ * @param chunkCases     the number of test cases in every chunk
+ * @param readAhead      the number of chunks read ahead of the one in use
+ * @param firstCase      the index of the first test case served
+ * @param cases          the number of test cases served
+ * @throws IOException may be thrown when the dataset cannot be read or does not match the network
+ */
+   public StreamingDataSource(String path, int numberOfCases, int inputs, int outputs, int chunkCases, int readAhead,
+                              int firstCase, int cases) throws IOException
+   {
+      int c;
+
+      this.path = path;
+      this.numberOfCases = cases;
+      this.inputs = inputs;
+      this.outputs = outputs;
+      this.chunkCases = chunkCases;
+      this.firstCase = firstCase;
+
+      channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+      header = DatasetFile.readHeader(channel, path, numberOfCases, inputs, outputs);
+      rows = DatasetFile.rowBuffer(header, chunkCases);
+
+      free = new ArrayBlockingQueue<Chunk>(readAhead + 1);
+      for (c = 0; c <= readAhead; c++)
+      {
+         free.add(new Chunk(new double[chunkCases][inputs], new double[chunkCases][outputs]));
+      }
+      full = new LinkedBlockingQueue<Chunk>();
+      endOfEpoch = new Chunk(null, null);
+      failed = new Chunk(null, null);
+      atEnd = true;
+
+      reader = new Thread(this::readEpochs, "NLayer reader");
+      reader.setDaemon(true);
+      reader.start();
+   } // public StreamingDataSource(String path, int numberOfCases, int inputs, int outputs, int chunkCases, ...)
+
+/**
+ * Runs on the reader thread, filling free chunks with the test cases of one epoch after another until the data source is
+ * closed. The end of every epoch is marked with endOfEpoch; a read error is passed on with failed.
+ */
+   public void readEpochs()
+   {
+      int first;
+      Chunk chunk;
+
+      try
+      {
+         while (true)
+         {
+            for (first = firstCase; first < firstCase + numberOfCases; first += chunkCases)
+            {
+               chunk = free.take();
+               chunk.first = first;
+               chunk.size = Math.min(chunkCases, firstCase + numberOfCases - first);
+               DatasetFile.readRows(channel, header, first, chunk.size, chunk.inputs, chunk.outputs, rows);
+               full.put(chunk);
+            }
+            full.put(endOfEpoch);
+         } // while (true)
+      } // try
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+      catch (IOException e)
+      {
+         failure = e;
+         full.add(failed);
+      }
+   } // public void readEpochs()
+
+/**
+ * Starts a new epoch, first skipping whatever is left of the current one
+ */
+   public void rewind()
+   {
+      while (!atEnd)
+      {
+         next();
+      }
+      atEnd = false;
+   } // public void rewind()
+
+/**
+ * Hands the previous chunk back to the reader and waits for the next one
+ *
+ * @return  the next chunk, or null once every test case of the epoch has been returned
+ */
+   public Chunk next()
+   {
+      Chunk chunk;
+
+      if (current != null)
+      {
+         free.add(current);
+         current = null;
+      }
+
+      if (atEnd)
+         return null;
+
+      chunk = take();
+      if (chunk == endOfEpoch)
+      {
+         atEnd = true;
+         return null;
+      }
+
+      if (chunk == failed)
+         throw new RuntimeException("Could not read the dataset " + path, failure);
+
+      current = chunk;
+      return chunk;
+   } // public Chunk next()
+
+/**
+ * Waits for the reader to finish a chunk
+ *
+ * @return  the oldest chunk that has been read
+ */
+   public Chunk take()
+   {
+      try
+      {
+         return full.take();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException("Interrupted while waiting for the dataset " + path, e);
+      }
+   } // public Chunk take()
+
+/**
+ * Stops the reader thread and closes the dataset
+ */
+   public void close()
+   {
+      reader.interrupt();
+
+      try
+      {
+         reader.join();
+         channel.close();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+      catch (IOException e)
+      {
+         System.out.println("Could not close the dataset " + path);
+      }
+   } // public void close()
+} // public class StreamingDataSource extends DataSource
@@ -0,0 +1,109 @@
+/**
+ * The hyperbolic tangent is a possible activation function used for the network. Its outputs lie in (-1, 1), so it suits
+ * hidden layers whose inputs are centered on zero. Its derivative can be taken from its output as 1 - f(x)^2.
+ * 
+ * Table of Contents
+ *  • public double f(double x)
+ *  • public double fPrime(double x)
+ *  • public double fPrimeFromOutput(double x, double fx)
+ *  • public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+ *  • public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+ *  • public void apply(double in[], double out[], int from, int to)
+ * 
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 13 May 2024
+ */
+public class Tanh extends ActivationFunction
+{
+/**
+ * The activation function (hyperbolic tangent) used for the network
+ * 
+ * @param x activations in previous layer * weights, or uppercase theta
+ * @return  the value of the activation
+ */
+   public double f(double x)
+   {
+      return Math.tanh(x);
+   }
+
+/**
+ * The derivative of the hyperbolic tangent, 1 - tanh(x)^2
+ * 
+ * @param x  activations in previous layer * weights, or uppercase theta
+ * @return  the change in the activation function
+ */
+   public double fPrime(double x)
+   {
+      double res = f(x);
+      return 1.0 - res * res;
+   }
+
+/**
+ * The derivative of the hyperbolic tangent from its output, 1 - f(x)^2
+ * 
+ * @param x   activations in previous layer * weights, or uppercase theta
+ * @param fx  the value of the activation, f(x)
+ * @return    the change in the activation function
+ */
+   public double fPrimeFromOutput(double x, double fx)
+   {
+      return 1.0 - fx * fx;
+   }
+
+/**
+ * The derivative of the hyperbolic tangent for a run of neurons from their activations
+ * 
+ * @param x     the theta values of the neurons
+ * @param fx    the activations of the neurons, f(x)
+ * @param out   receives the derivatives
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = 1.0 - fx[i] * fx[i];
+      }
+   } // public void fPrimeFromOutput(double x[], double fx[], double out[], int from, int to)
+
+/**
+ * The derivative of the hyperbolic tangent for a run of single-precision neurons from their activations
+ * 
+ * @param x     the theta values of the neurons
+ * @param fx    the activations of the neurons, f(x)
+ * @param out   receives the derivatives
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = 1.0f - fx[i] * fx[i];
+      }
+   } // public void fPrimeFromOutput(float x[], float fx[], float out[], int from, int to)
+
+/**
+ * Applies the hyperbolic tangent to a run of neurons
+ * 
+ * @param in    the theta values of the neurons
+ * @param out   receives the activations, and may be the same array as in
+ * @param from  the first neuron
+ * @param to    one past the last neuron
+ */
+   public void apply(double in[], double out[], int from, int to)
+   {
+      int i;
+
+      for (i = from; i < to; i++)
+      {
+         out[i] = Math.tanh(in[i]);
+      }
+   } // public void apply(double in[], double out[], int from, int to)
+} // public class Tanh extends ActivationFunction
@@ -0,0 +1,372 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * TrainingMetrics records where the time of training goes. The network adds the time of each phase of each layer to
+ * forwardNanos, backwardNanos and updateNanos as it trains, and train() calls endEpoch after every iteration. Every
+ * metricsInterval iterations, and once more when training ends, the totals of the window are turned into one row of
+ * metrics:
+ *  • the error
+ *  • the samples trained per second
+ *  • an estimate of the GFLOP/s reached
+ *  • the rate at which the training thread allocated memory
+ *  • the forward, backward and update time of every layer
+ * The row is committed as JFR events (nlayer.Epoch, and one nlayer.Layer per layer), which cost nothing unless a flight
+ * recording is running, and is also written to a CSV or JSON file when a metrics file is given.
+ *
+ * Layer alpha is the layer fed by weights[alpha - 1]. Forward is finding its theta values and activations. Backward is
+ * finding psi and passing omega back through its weights. Update is finding the gradient and changing the weights. Online
+ * training fuses the update of every layer but the first into the backward pass (backpropRow), so their update time is
+ * counted as backward. With more than one training thread the phases run on the workers and are not timed; only the rate,
+ * error and allocation of the training thread are recorded.
+ *
+ * The FLOP estimate counts 2 FLOPs per weight for the forward pass, 4 for the fused backward pass and update, and 2 for
+ * the first layer's update, plus another forward pass in the EXACT error mode.
+ *
+ * Table of Contents
+ *  • public TrainingMetrics(int layers[], String filePath, int interval, boolean exactError)
+ *  • public long lap()
+ *  • public void start()
+ *  • public void endEpoch(int iterations, double error, long samples)
+ *  • public void record(int iterations, double error)
+ *  • public void writeCsv(int iterations, double error, double samplesPerSecond, double gflops, double allocationRate)
+ *  • public void writeJson(int iterations, double error, double samplesPerSecond, double gflops, double allocationRate)
+ *  • public long allocatedBytes()
+ *  • public void finish(int iterations, double error)
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 17 May 2024
+ */
+public class TrainingMetrics
+{
+   static final String JSON_SUFFIX = ".json";
+   static final double NANOS_PER_SECOND = 1e9;
+   static final double FLOPS_PER_GIGAFLOP = 1e9;
+   static final double NANOS_PER_MICRO = 1e3;
+   static final int FORWARD_FLOPS = 2;
+   static final int BACKWARD_FLOPS = 4;
+   static final int UPDATE_FLOPS = 2;
+
+   int n;
+   int layers[];
+   int interval;
+   double flopsPerSample;
+
+   long forwardNanos[];
+   long backwardNanos[];
+   long updateNanos[];
+   long last;
+   long windowStart;
+   long windowSamples;
+   long allocatedStart;
+
+   com.sun.management.ThreadMXBean threads;
+   EpochEvent event;
+
+   PrintWriter out;
+   boolean json;
+   boolean firstRow;
+
+/**
+ * A JFR event covering one window of metricsInterval iterations
+ */
+   @Name("nlayer.Epoch")
+   @Label("NLayer Training Window")
+   @Category("NLayer")
+   @Description("The error and throughput of a window of training iterations")
+   static class EpochEvent extends Event
+   {
+      @Label("Iteration")
+      int iteration;
+
+      @Label("Error")
+      double error;
+
+      @Label("Samples per Second")
+      double samplesPerSecond;
+
+      @Label("GFLOP/s")
+      double gflops;
+
+      @Label("Allocation Rate")
+      @DataAmount(DataAmount.BYTES)
+      long allocatedBytesPerSecond;
+   } // static class EpochEvent extends Event
+
+/**
+ * A JFR event holding the phase times of one layer over one window
+ */
+   @Name("nlayer.Layer")
+   @Label("NLayer Layer Phases")
+   @Category("NLayer")
+   @Description("The forward, backward and update time of one layer over a window of training iterations")
+   static class LayerEvent extends Event
+   {
+      @Label("Iteration")
+      int iteration;
+
+      @Label("Layer")
+      int layer;
+
+      @Label("Forward")
+      @Timespan(Timespan.NANOSECONDS)
+      long forward;
+
+      @Label("Backward")
+      @Timespan(Timespan.NANOSECONDS)
+      long backward;
+
+      @Label("Update")
+      @Timespan(Timespan.NANOSECONDS)
+      long update;
+   } // static class LayerEvent extends Event
+
+/**
+ * Constructor for the TrainingMetrics class
+ *
+ * @param layers      the number of neurons in every layer
+ * @param filePath    the CSV or JSON file to write to (JSON if it ends in .json), or null for JFR events only
+ * @param interval    the number of iterations in each window
+ * @param exactError  whether every test case is run forward a second time for its error
+ * @throws IOException may be thrown when the metrics file cannot be created
+ */
+   public TrainingMetrics(int layers[], String filePath, int interval, boolean exactError) throws IOException
+   {
+      int alpha;
+      long weights = 0;
+
+      this.layers = layers;
+      this.interval = Math.max(1, interval);
+      n = layers.length;
+
+      forwardNanos = new long[n];
+      backwardNanos = new long[n];
+      updateNanos = new long[n];
+
+      for (alpha = 1; alpha < n; alpha++)
+      {
+         weights += (long) layers[alpha - 1] * layers[alpha];
+      }
+      flopsPerSample = (exactError ? 2 * FORWARD_FLOPS : FORWARD_FLOPS) * weights +
+                       BACKWARD_FLOPS * (weights - (long) layers[0] * layers[1]) + UPDATE_FLOPS * (long) layers[0] * layers[1];
+
+      if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)
+      {
+         threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      }
+
+      if (filePath != null)
+      {
+         out = new PrintWriter(new FileWriter(filePath));
+         json = filePath.endsWith(JSON_SUFFIX);
+         firstRow = true;
+
+         if (json)
+         {
+            out.println("[");
+         }
+         else
+         {
+            out.print("iteration,error,samplesPerSecond,gflops,allocatedBytesPerSecond");
+            for (alpha = 1; alpha < n; alpha++)
+            {
+               out.print(",forwardUs" + alpha + ",backwardUs" + alpha + ",updateUs" + alpha);
+            }
+            out.println();
+         }
+      } // if (filePath != null)
+   } // public TrainingMetrics(int layers[], String filePath, int interval, boolean exactError) throws IOException
+
+/**
+ * Gets the time since the last call, so consecutive calls split a stretch of work into phases
+ *
+ * @return  the nanoseconds since the last call to lap or start
+ */
+   public long lap()
+   {
+      long now = System.nanoTime();
+      long elapsed = now - last;
+
+      last = now;
+      return elapsed;
+   } // public long lap()
+
+/**
+ * Starts a new window: clears the phase times and notes the time and the memory allocated so far
+ */
+   public void start()
+   {
+      int alpha;
+
+      for (alpha = 0; alpha < n; alpha++)
+      {
+         forwardNanos[alpha] = 0;
+         backwardNanos[alpha] = 0;
+         updateNanos[alpha] = 0;
+      }
+
+      event = new EpochEvent();
+      event.begin();
+
+      windowSamples = 0;
+      allocatedStart = allocatedBytes();
+      windowStart = System.nanoTime();
+      last = windowStart;
+   } // public void start()
+
+/**
+ * Counts one finished iteration and records the window if it is the last iteration of the window
+ *
+ * @param iterations  the number of iterations trained so far
+ * @param error       the current average error
+ * @param samples     the number of test cases trained in the iteration
+ */
+   public void endEpoch(int iterations, double error, long samples)
+   {
+      windowSamples += samples;
+
+      if (iterations % interval == 0)
+      {
+         record(iterations, error);
+      }
+   } // public void endEpoch(int iterations, double error, long samples)
+
+/**
+ * Ends the window, commits its JFR events, writes its row to the metrics file if there is one, and starts the next window
+ *
+ * @param iterations  the number of iterations trained so far
+ * @param error       the current average error
+ */
+   public void record(int iterations, double error)
+   {
+      int alpha;
+      double seconds = (System.nanoTime() - windowStart) / NANOS_PER_SECOND;
+      double samplesPerSecond = windowSamples / seconds;
+      double gflops = samplesPerSecond * flopsPerSample / FLOPS_PER_GIGAFLOP;
+      double allocationRate = threads == null ? -1.0 : (allocatedBytes() - allocatedStart) / seconds;
+      LayerEvent layerEvent;
+
+      event.end();
+      if (event.shouldCommit())
+      {
+         event.iteration = iterations;
+         event.error = error;
+         event.samplesPerSecond = samplesPerSecond;
+         event.gflops = gflops;
+         event.allocatedBytesPerSecond = (long) allocationRate;
+         event.commit();
+
+         for (alpha = 1; alpha < n; alpha++)
+         {
+            layerEvent = new LayerEvent();
+            layerEvent.iteration = iterations;
+            layerEvent.layer = alpha;
+            layerEvent.forward = forwardNanos[alpha];
+            layerEvent.backward = backwardNanos[alpha];
+            layerEvent.update = updateNanos[alpha];
+            layerEvent.commit();
+         }
+      } // if (event.shouldCommit())
+
+      if (out != null)
+      {
+         if (json)
+            writeJson(iterations, error, samplesPerSecond, gflops, allocationRate);
+         else
+            writeCsv(iterations, error, samplesPerSecond, gflops, allocationRate);
+      }
+
+      start();
+   } // public void record(int iterations, double error)
+
+/**
+ * Writes one window as a line of the CSV file
+ *
+ * @param iterations        the number of iterations trained so far
+ * @param error             the current average error
+ * @param samplesPerSecond  the test cases trained per second over the window
+ * @param gflops            the estimated GFLOP/s over the window
+ * @param allocationRate    the bytes allocated per second by the training thread, or -1 if unknown
+ */
+   public void writeCsv(int iterations, double error, double samplesPerSecond, double gflops, double allocationRate)
+   {
+      int alpha;
+
+      out.print(iterations + "," + error + "," + samplesPerSecond + "," + gflops + "," + (long) allocationRate);
+      for (alpha = 1; alpha < n; alpha++)
+      {
+         out.print("," + forwardNanos[alpha] / NANOS_PER_MICRO + "," + backwardNanos[alpha] / NANOS_PER_MICRO + "," +
+                   updateNanos[alpha] / NANOS_PER_MICRO);
+      }
+      out.println();
+   } // public void writeCsv(int iterations, double error, double samplesPerSecond, double gflops, double allocationRate)
+
+/**
+ * Writes one window as an object of the JSON array
+ *
+ * @param iterations        the number of iterations trained so far
+ * @param error             the current average error
+ * @param samplesPerSecond  the test cases trained per second over the window
+ * @param gflops            the estimated GFLOP/s over the window
+ * @param allocationRate    the bytes allocated per second by the training thread, or -1 if unknown
+ */
+   public void writeJson(int iterations, double error, double samplesPerSecond, double gflops, double allocationRate)
+   {
+      int alpha;
+
+      out.print((firstRow ? "" : ",\n") + "  {\"iteration\": " + iterations + ", \"error\": " + error +
+                ", \"samplesPerSecond\": " + samplesPerSecond + ", \"gflops\": " + gflops +
+                ", \"allocatedBytesPerSecond\": " + (long) allocationRate + ", \"layers\": [");
+      for (alpha = 1; alpha < n; alpha++)
+      {
+         out.print((alpha == 1 ? "" : ", ") + "{\"forwardUs\": " + forwardNanos[alpha] / NANOS_PER_MICRO +
+                   ", \"backwardUs\": " + backwardNanos[alpha] / NANOS_PER_MICRO +
+                   ", \"updateUs\": " + updateNanos[alpha] / NANOS_PER_MICRO + "}");
+      }
+      out.print("]}");
+      firstRow = false;
+   } // public void writeJson(int iterations, double error, double samplesPerSecond, double gflops, double allocationRate)
+
+/**
+ * Gets the number of bytes the calling thread has allocated since it started
+ *
+ * @return  the bytes allocated, or 0 if the JVM cannot tell
+ */
+   public long allocatedBytes()
+   {
+      return threads == null ? 0 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+   }
+
+/**
+ * Records the last, partial window if it has any iterations in it, then finishes and closes the metrics file
+ *
+ * @param iterations  the number of iterations trained
+ * @param error       the final average error
+ */
+   public void finish(int iterations, double error)
+   {
+      if (windowSamples > 0)
+      {
+         record(iterations, error);
+      }
+
+      if (out != null)
+      {
+         if (json)
+         {
+            out.println("\n]");
+         }
+         out.close();
+      }
+   } // public void finish(int iterations, double error)
+} // public class TrainingMetrics
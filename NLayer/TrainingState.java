@@ -0,0 +1,160 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Scanner;
+
+/**
+ * A TrainingState is the part of a checkpoint that is not weights: how far training got, the error it had reached, the
+ * state of the network's random number generator, the learning rate and the number of updates the optimizer has taken.
+ * It is stored next to the checkpoint's binary weights file as a small text file in the same "name = value" form as the
+ * configuration files. The file also holds the checksum of the weights file and of every optimizer moment file it was
+ * written with, so that resuming from files written by different checkpoints is caught instead of silently mixing them.
+ * Checkpoints written before the generator state was saved have no rngSeed, and resume without restoring it; those
+ * written before the learning rate and the optimizer's update count were saved resume with the configured lambda and a
+ * count of zero.
+ *
+ * Table of Contents
+ *  • public void write(String path)
+ *  • public static TrainingState read(String path)
+ *
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 18 May 2024
+ */
+public class TrainingState
+{
+   int iterations;
+   double avgError;
+   long weightsChecksum;
+
+   boolean hasRng;
+   long rngSeed;
+   long rngGamma;
+
+   boolean hasLambda;
+   double lambda;
+
+   long optimizerSteps;
+   long momentChecksums[];
+
+/**
+ * Writes the state to a text file
+ *
+ * @param path  the path to the state file
+ * @throws IOException may be thrown when the file cannot be written
+ */
+   public void write(String path) throws IOException
+   {
+      int k;
+      PrintWriter out = new PrintWriter(path);
+
+      out.println("iterations = " + iterations);
+      out.println("avgError = " + avgError);
+      out.println("weightsChecksum = " + weightsChecksum);
+
+      if (hasRng)
+      {
+         out.println("rngSeed = " + rngSeed);
+         out.println("rngGamma = " + rngGamma);
+      }
+
+      if (hasLambda)
+      {
+         out.println("lambda = " + lambda);
+      }
+
+      out.println("optimizerSteps = " + optimizerSteps);
+      out.println("moments = " + momentChecksums.length);
+      for (k = 0; k < momentChecksums.length; k++)
+      {
+         out.println("momentChecksum" + k + " = " + momentChecksums[k]);
+      }
+      out.close();
+
+      if (out.checkError())
+         throw new IOException("Could not write " + path);
+   } // public void write(String path) throws IOException
+
+/**
+ * Reads a state written by write
+ *
+ * @param path  the path to the state file
+ * @return      the state
+ * @throws IOException may be thrown when the file cannot be read or is missing a value
+ */
+   public static TrainingState read(String path) throws IOException
+   {
+      int found = 0, k;
+      String line, name, value;
+      TrainingState state = new TrainingState();
+
+      try (Scanner in = new Scanner(new File(path)))
+      {
+         while (in.hasNextLine())
+         {
+            line = in.nextLine();
+            if (line.indexOf(" = ") < 0)
+               continue;
+
+            name = line.substring(0, line.indexOf(" = "));
+            value = line.substring(line.indexOf(" = ") + 3).trim();
+
+            if (name.equals("iterations"))
+               state.iterations = Integer.parseInt(value);
+
+            else if (name.equals("avgError"))
+               state.avgError = Double.parseDouble(value);
+
+            else if (name.equals("weightsChecksum"))
+               state.weightsChecksum = Long.parseLong(value);
+
+            else
+            {
+               if (name.equals("rngSeed"))
+               {
+                  state.rngSeed = Long.parseLong(value);
+                  state.hasRng = true;
+               }
+
+               else if (name.equals("rngGamma"))
+                  state.rngGamma = Long.parseLong(value);
+
+               else if (name.equals("lambda"))
+               {
+                  state.lambda = Double.parseDouble(value);
+                  state.hasLambda = true;
+               }
+
+               else if (name.equals("optimizerSteps"))
+                  state.optimizerSteps = Long.parseLong(value);
+
+               else if (name.equals("moments"))
+                  state.momentChecksums = new long[Integer.parseInt(value)];
+
+               else if (name.startsWith("momentChecksum") && state.momentChecksums != null)
+               {
+                  k = Integer.parseInt(name.substring("momentChecksum".length()));
+                  if (k < 0 || k >= state.momentChecksums.length)
+                     throw new IOException(path + " has a checksum for moment " + k + " that it does not have");
+                  state.momentChecksums[k] = Long.parseLong(value);
+               }
+               continue;
+            } // if (name.equals("iterations"))...else
+
+            found++;
+         } // while (in.hasNextLine())
+      } // try (Scanner in = new Scanner(new File(path)))
+      catch (NumberFormatException e)
+      {
+         throw new IOException(path + " has a malformed value: " + e.getMessage());
+      }
+
+      if (found < 3)
+         throw new IOException(path + " is not a complete training state");
+
+      if (state.momentChecksums == null)
+         state.momentChecksums = new long[0];
+
+      return state;
+   } // public static TrainingState read(String path) throws IOException
+} // public class TrainingState
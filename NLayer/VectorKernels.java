@@ -0,0 +1,238 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The vector kernels use the JDK Vector API to process as many doubles (or floats) per instruction as the hardware supports, finishing
+ * the remainder of each row (the tail) with a scalar loop. The dot product uses fused multiply-adds and sums its lanes at
+ * the end, so its result may differ from the scalar kernels in the last few bits; the weight updates round exactly as the
+ * scalar kernels do.
+ * 
+ * This class needs the incubating vector module, both to compile and to run:
+ *    javac --add-modules jdk.incubator.vector *.java
+ *    java --add-modules jdk.incubator.vector NLayer config.txt
+ * 
+ * Table of Contents
+ *  • public double dot(double[] x, int xOff, double[] w, int wOff, int len)
+ *  • public void backpropRow(double[] w, int wOff, double[] a, double[] omega, double psi, double lambda, int len)
+ *  • public void updateRow(double[] w, int wOff, double[] a, double psi, double lambda, int len)
+ *  • public void axpy(double s, double[] x, int xOff, double[] y, int yOff, int len)
+ *  • public float dot(float[] x, int xOff, float[] w, int wOff, int len)
+ *  • public void backpropRow(float[] w, int wOff, float[] a, float[] omega, float psi, float lambda, int len)
+ *  • public void updateRow(float[] w, int wOff, float[] a, float psi, float lambda, int len)
+ * 
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 4 May 2024
+ */
+public class VectorKernels extends Kernels
+{
+   static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+   static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+
+/**
+ * Computes the dot product of len elements of x, starting at xOff, with len elements of w, starting at wOff
+ * 
+ * @param x     the activations of the previous layer
+ * @param xOff  the index of the first activation
+ * @param w     the flat weight array
+ * @param wOff  the index of the first weight in the row
+ * @param len   the number of elements to multiply
+ * @return      the sum of the products, or uppercase theta
+ */
+   public double dot(double[] x, int xOff, double[] w, int wOff, int len)
+   {
+      int i;
+      int upper = SPECIES.loopBound(len);
+      double sum;
+      DoubleVector acc = DoubleVector.zero(SPECIES);
+
+      for (i = 0; i < upper; i += SPECIES.length())
+      {
+         acc = DoubleVector.fromArray(SPECIES, x, xOff + i).fma(DoubleVector.fromArray(SPECIES, w, wOff + i), acc);
+      }
+      sum = acc.reduceLanes(VectorOperators.ADD);
+
+      for (; i < len; i++)
+      {
+         sum += x[xOff + i] * w[wOff + i];
+      }
+      return sum;
+   } // public double dot(double[] x, int xOff, double[] w, int wOff, int len)
+
+/**
+ * Accumulates the contribution of one neuron's psi into omega and updates the row of weights feeding that neuron
+ * 
+ * @param w       the flat weight array
+ * @param wOff    the index of the first weight in the row
+ * @param a       the activations of the layer feeding the row
+ * @param omega   the omega values of the layer feeding the row
+ * @param psi     the psi value of the neuron the row feeds
+ * @param lambda  the learning rate
+ * @param len     the length of the row
+ */
+   public void backpropRow(double[] w, int wOff, double[] a, double[] omega, double psi, double lambda, int len)
+   {
+      int i;
+      int upper = SPECIES.loopBound(len);
+      DoubleVector vw;
+      DoubleVector vpsi = DoubleVector.broadcast(SPECIES, psi);
+
+      for (i = 0; i < upper; i += SPECIES.length())
+      {
+         vw = DoubleVector.fromArray(SPECIES, w, wOff + i);
+         vw.fma(vpsi, DoubleVector.fromArray(SPECIES, omega, i)).intoArray(omega, i);
+         DoubleVector.fromArray(SPECIES, a, i).mul(lambda).mul(psi).add(vw).intoArray(w, wOff + i);
+      }
+
+      for (; i < len; i++)
+      {
+         omega[i] += psi * w[wOff + i];
+         w[wOff + i] += lambda * a[i] * psi;
+      }
+   } // public void backpropRow(double[] w, int wOff, double[] a, double[] omega, double psi, double lambda, int len)
+
+/**
+ * Updates the row of weights feeding one neuron
+ * 
+ * @param w       the flat weight array
+ * @param wOff    the index of the first weight in the row
+ * @param a       the activations of the layer feeding the row
+ * @param psi     the psi value of the neuron the row feeds
+ * @param lambda  the learning rate
+ * @param len     the length of the row
+ */
+   public void updateRow(double[] w, int wOff, double[] a, double psi, double lambda, int len)
+   {
+      int i;
+      int upper = SPECIES.loopBound(len);
+
+      for (i = 0; i < upper; i += SPECIES.length())
+      {
+         DoubleVector.fromArray(SPECIES, a, i).mul(lambda).mul(psi).add(DoubleVector.fromArray(SPECIES, w, wOff + i))
+                     .intoArray(w, wOff + i);
+      }
+
+      for (; i < len; i++)
+      {
+         w[wOff + i] += lambda * a[i] * psi;
+      }
+   } // public void updateRow(double[] w, int wOff, double[] a, double psi, double lambda, int len)
+
+/**
+ * Adds s times len elements of x, starting at xOff, to len elements of y, starting at yOff
+ * 
+ * @param s     the scale applied to x
+ * @param x     the array that is scaled and added
+ * @param xOff  the index of the first element of x
+ * @param y     the array that is added to
+ * @param yOff  the index of the first element of y
+ * @param len   the number of elements to add
+ */
+   public void axpy(double s, double[] x, int xOff, double[] y, int yOff, int len)
+   {
+      int i;
+      int upper = SPECIES.loopBound(len);
+      DoubleVector vs = DoubleVector.broadcast(SPECIES, s);
+
+      for (i = 0; i < upper; i += SPECIES.length())
+      {
+         DoubleVector.fromArray(SPECIES, x, xOff + i).fma(vs, DoubleVector.fromArray(SPECIES, y, yOff + i)).intoArray(y, yOff + i);
+      }
+
+      for (; i < len; i++)
+      {
+         y[yOff + i] += s * x[xOff + i];
+      }
+   } // public void axpy(double s, double[] x, int xOff, double[] y, int yOff, int len)
+
+/**
+ * Computes the single-precision dot product of len elements of x, starting at xOff, with len elements of w, starting at wOff
+ * 
+ * @param x     the activations of the previous layer
+ * @param xOff  the index of the first activation
+ * @param w     the flat weight array
+ * @param wOff  the index of the first weight in the row
+ * @param len   the number of elements to multiply
+ * @return      the sum of the products, or uppercase theta
+ */
+   public float dot(float[] x, int xOff, float[] w, int wOff, int len)
+   {
+      int i;
+      int upper = FLOAT_SPECIES.loopBound(len);
+      float sum;
+      FloatVector acc = FloatVector.zero(FLOAT_SPECIES);
+
+      for (i = 0; i < upper; i += FLOAT_SPECIES.length())
+      {
+         acc = FloatVector.fromArray(FLOAT_SPECIES, x, xOff + i).fma(FloatVector.fromArray(FLOAT_SPECIES, w, wOff + i), acc);
+      }
+      sum = acc.reduceLanes(VectorOperators.ADD);
+
+      for (; i < len; i++)
+      {
+         sum += x[xOff + i] * w[wOff + i];
+      }
+      return sum;
+   } // public float dot(float[] x, int xOff, float[] w, int wOff, int len)
+
+/**
+ * Single-precision version of backpropRow
+ * 
+ * @param w       the flat weight array
+ * @param wOff    the index of the first weight in the row
+ * @param a       the activations of the layer feeding the row
+ * @param omega   the omega values of the layer feeding the row
+ * @param psi     the psi value of the neuron the row feeds
+ * @param lambda  the learning rate
+ * @param len     the length of the row
+ */
+   public void backpropRow(float[] w, int wOff, float[] a, float[] omega, float psi, float lambda, int len)
+   {
+      int i;
+      int upper = FLOAT_SPECIES.loopBound(len);
+      FloatVector vw;
+      FloatVector vpsi = FloatVector.broadcast(FLOAT_SPECIES, psi);
+
+      for (i = 0; i < upper; i += FLOAT_SPECIES.length())
+      {
+         vw = FloatVector.fromArray(FLOAT_SPECIES, w, wOff + i);
+         vw.fma(vpsi, FloatVector.fromArray(FLOAT_SPECIES, omega, i)).intoArray(omega, i);
+         FloatVector.fromArray(FLOAT_SPECIES, a, i).mul(lambda).mul(psi).add(vw).intoArray(w, wOff + i);
+      }
+
+      for (; i < len; i++)
+      {
+         omega[i] += psi * w[wOff + i];
+         w[wOff + i] += lambda * a[i] * psi;
+      }
+   } // public void backpropRow(float[] w, int wOff, float[] a, float[] omega, float psi, float lambda, int len)
+
+/**
+ * Single-precision version of updateRow
+ * 
+ * @param w       the flat weight array
+ * @param wOff    the index of the first weight in the row
+ * @param a       the activations of the layer feeding the row
+ * @param psi     the psi value of the neuron the row feeds
+ * @param lambda  the learning rate
+ * @param len     the length of the row
+ */
+   public void updateRow(float[] w, int wOff, float[] a, float psi, float lambda, int len)
+   {
+      int i;
+      int upper = FLOAT_SPECIES.loopBound(len);
+
+      for (i = 0; i < upper; i += FLOAT_SPECIES.length())
+      {
+         FloatVector.fromArray(FLOAT_SPECIES, a, i).mul(lambda).mul(psi).add(FloatVector.fromArray(FLOAT_SPECIES, w, wOff + i))
+                    .intoArray(w, wOff + i);
+      }
+
+      for (; i < len; i++)
+      {
+         w[wOff + i] += lambda * a[i] * psi;
+      }
+   } // public void updateRow(float[] w, int wOff, float[] a, float psi, float lambda, int len)
+} // public class VectorKernels extends Kernels
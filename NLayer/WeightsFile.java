@@ -0,0 +1,405 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * WeightsFile reads and writes the binary weights format. Every value is little-endian:
+ * 
+ *    int   magic      0x4E4E5754 ("NNWT")
+ *    int   version    1
+ *    int   dtype      4 for float32 weights, 8 for float64 weights
+ *    int   n          the number of layers
+ *    int   layers[n]  the number of neurons in every layer
+ *    long  checksum   the CRC-32 of every payload byte
+ *    payload          weights[0], weights[1], ..., weights[n - 2], each in NLayer's flat row-major layout
+ * 
+ * Files are written through a FileChannel from a reusable direct buffer, and read by memory-mapping the payload and copying
+ * it straight into the weight arrays with bulk gets, so loading a large network costs one pass over the file instead of
+ * parsing one line of text per weight. A file with either dtype can be loaded into a network of either precision.
+ * 
+ * Table of Contents
+ *  • public static boolean isBinary(String path)
+ *  • public static long write(String path, int layers[], double weights[][])
+ *  • public static long write(String path, int layers[], float weights[][])
+ *  • public static void read(String path, int layers[], double weights[][])
+ *  • public static void read(String path, int layers[], float weights[][])
+ *  • public static ByteBuffer header(int layers[], int dtype, long checksum)
+ *  • public static int readHeader(FileChannel channel, String path, int layers[])
+ *  • public static long payloadOffset(int layers[])
+ *  • public static long payloadBytes(int layers[], int dtype)
+ *  • public static void writeChunk(FileChannel channel, ByteBuffer chunk, CRC32 crc)
+ *  • public static void checkChecksum(FileChannel channel, String path, int layers[], CRC32 crc)
+ *  • public static long checksum(String path, int layers[])
+ * 
+ * @author Kyle Li
+ * @version 30 April 2024
+ * Date of creation: 9 May 2024
+ */
+public class WeightsFile
+{
+   static final int MAGIC = 0x4E4E5754;
+   static final int VERSION = 1;
+   static final int DTYPE_FLOAT32 = 4;
+   static final int DTYPE_FLOAT64 = 8;
+
+   static final int INT_BYTES = 4;
+   static final int LONG_BYTES = 8;
+   static final int FIXED_HEADER_INTS = 4;
+
+   static final int CHUNK_BYTES = 1 << 20;
+   static final long MAX_MAP_BYTES = 1L << 30;
+
+/**
+ * Tells whether a file starts with the binary weights magic number
+ * 
+ * @param path  the path to the weights file
+ * @return      true if the file is in the binary format
+ * @throws IOException may be thrown when the file cannot be read
+ */
+   public static boolean isBinary(String path) throws IOException
+   {
+      ByteBuffer magic = ByteBuffer.allocate(INT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+      try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ))
+      {
+         while (magic.hasRemaining() && channel.read(magic) >= 0);
+      }
+      return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+   } // public static boolean isBinary(String path)
+
+/**
+ * Writes double-precision weights to a binary weights file
+ * 
+ * @param path     the path to the weights file
+ * @param layers   the number of neurons in every layer
+ * @param weights  the flat weights of every layer
+ * @return         the checksum of the payload
+ * @throws IOException may be thrown when writing to the file fails
+ */
+   public static long write(String path, int layers[], double weights[][]) throws IOException
+   {
+      int alpha, i, count;
+      CRC32 crc = new CRC32();
+      ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+      try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                  StandardOpenOption.TRUNCATE_EXISTING))
+      {
+         channel.position(payloadOffset(layers));
+
+         for (alpha = 0; alpha < weights.length; alpha++)
+         {
+            for (i = 0; i < weights[alpha].length; i += count)
+            {
+               count = Math.min(weights[alpha].length - i, CHUNK_BYTES / DTYPE_FLOAT64);
+               chunk.clear();
+               chunk.asDoubleBuffer().put(weights[alpha], i, count);
+               chunk.limit(count * DTYPE_FLOAT64);
+               writeChunk(channel, chunk, crc);
+            }
+         } // for (alpha = 0; alpha < weights.length; alpha++)
+
+         channel.write(header(layers, DTYPE_FLOAT64, crc.getValue()), 0);
+      } // try (FileChannel channel = ...)
+      return crc.getValue();
+   } // public static long write(String path, int layers[], double weights[][])
+
+/**
+ * Writes single-precision weights to a binary weights file
+ * 
+ * @param path     the path to the weights file
+ * @param layers   the number of neurons in every layer
+ * @param weights  the flat weights of every layer
+ * @return         the checksum of the payload
+ * @throws IOException may be thrown when writing to the file fails
+ */
+   public static long write(String path, int layers[], float weights[][]) throws IOException
+   {
+      int alpha, i, count;
+      CRC32 crc = new CRC32();
+      ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+      try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                  StandardOpenOption.TRUNCATE_EXISTING))
+      {
+         channel.position(payloadOffset(layers));
+
+         for (alpha = 0; alpha < weights.length; alpha++)
+         {
+            for (i = 0; i < weights[alpha].length; i += count)
+            {
+               count = Math.min(weights[alpha].length - i, CHUNK_BYTES / DTYPE_FLOAT32);
+               chunk.clear();
+               chunk.asFloatBuffer().put(weights[alpha], i, count);
+               chunk.limit(count * DTYPE_FLOAT32);
+               writeChunk(channel, chunk, crc);
+            }
+         } // for (alpha = 0; alpha < weights.length; alpha++)
+
+         channel.write(header(layers, DTYPE_FLOAT32, crc.getValue()), 0);
+      } // try (FileChannel channel = ...)
+      return crc.getValue();
+   } // public static long write(String path, int layers[], float weights[][])
+
+/**
+ * Reads a binary weights file of either dtype into double-precision weights
+ * 
+ * @param path     the path to the weights file
+ * @param layers   the number of neurons in every layer, which must match the file
+ * @param weights  the flat weights of every layer, filled in
+ * @throws IOException may be thrown when the file cannot be read, does not match the network or fails its checksum
+ */
+   public static void read(String path, int layers[], double weights[][]) throws IOException
+   {
+      int alpha, dtype, done, count, i;
+      long position, bytes;
+      CRC32 crc = new CRC32();
+      MappedByteBuffer map;
+
+      try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ))
+      {
+         dtype = readHeader(channel, path, layers);
+         position = payloadOffset(layers);
+
+         for (alpha = 0; alpha < weights.length; alpha++)
+         {
+            for (done = 0; done < weights[alpha].length; done += count)
+            {
+               count = (int) Math.min(weights[alpha].length - done, MAX_MAP_BYTES / dtype);
+               bytes = (long) count * dtype;
+               map = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes);
+               map.order(ByteOrder.LITTLE_ENDIAN);
+               crc.update(map.duplicate());
+
+               if (dtype == DTYPE_FLOAT64)
+               {
+                  map.asDoubleBuffer().get(weights[alpha], done, count);
+               }
+               else
+               {
+                  FloatBuffer values = map.asFloatBuffer();
+
+                  for (i = 0; i < count; i++)
+                  {
+                     weights[alpha][done + i] = values.get(i);
+                  }
+               } // if (dtype == DTYPE_FLOAT64)...else
+               position += bytes;
+            } // for (done = 0; done < weights[alpha].length; done += count)
+         } // for (alpha = 0; alpha < weights.length; alpha++)
+
+         checkChecksum(channel, path, layers, crc);
+      } // try (FileChannel channel = ...)
+   } // public static void read(String path, int layers[], double weights[][])
+
+/**
+ * Reads a binary weights file of either dtype into single-precision weights
+ * 
+ * @param path     the path to the weights file
+ * @param layers   the number of neurons in every layer, which must match the file
+ * @param weights  the flat weights of every layer, filled in
+ * @throws IOException may be thrown when the file cannot be read, does not match the network or fails its checksum
+ */
+   public static void read(String path, int layers[], float weights[][]) throws IOException
+   {
+      int alpha, dtype, done, count, i;
+      long position, bytes;
+      CRC32 crc = new CRC32();
+      MappedByteBuffer map;
+
+      try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ))
+      {
+         dtype = readHeader(channel, path, layers);
+         position = payloadOffset(layers);
+
+         for (alpha = 0; alpha < weights.length; alpha++)
+         {
+            for (done = 0; done < weights[alpha].length; done += count)
+            {
+               count = (int) Math.min(weights[alpha].length - done, MAX_MAP_BYTES / dtype);
+               bytes = (long) count * dtype;
+               map = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes);
+               map.order(ByteOrder.LITTLE_ENDIAN);
+               crc.update(map.duplicate());
+
+               if (dtype == DTYPE_FLOAT32)
+               {
+                  map.asFloatBuffer().get(weights[alpha], done, count);
+               }
+               else
+               {
+                  DoubleBuffer values = map.asDoubleBuffer();
+
+                  for (i = 0; i < count; i++)
+                  {
+                     weights[alpha][done + i] = (float) values.get(i);
+                  }
+               } // if (dtype == DTYPE_FLOAT32)...else
+               position += bytes;
+            } // for (done = 0; done < weights[alpha].length; done += count)
+         } // for (alpha = 0; alpha < weights.length; alpha++)
+
+         checkChecksum(channel, path, layers, crc);
+      } // try (FileChannel channel = ...)
+   } // public static void read(String path, int layers[], float weights[][])
+
+/**
+ * Builds the header of a binary weights file
+ * 
+ * @param layers    the number of neurons in every layer
+ * @param dtype     the number of bytes in every weight
+ * @param checksum  the CRC-32 of the payload
+ * @return          the header, ready to be written
+ */
+   public static ByteBuffer header(int layers[], int dtype, long checksum)
+   {
+      int alpha;
+      ByteBuffer header = ByteBuffer.allocate((int) payloadOffset(layers)).order(ByteOrder.LITTLE_ENDIAN);
+
+      header.putInt(MAGIC).putInt(VERSION).putInt(dtype).putInt(layers.length);
+      for (alpha = 0; alpha < layers.length; alpha++)
+      {
+         header.putInt(layers[alpha]);
+      }
+      header.putLong(checksum);
+      header.flip();
+      return header;
+   } // public static ByteBuffer header(int layers[], int dtype, long checksum)
+
+/**
+ * Reads and checks the header of a binary weights file
+ * 
+ * @param channel  the open weights file
+ * @param path     the path to the weights file, for error messages
+ * @param layers   the number of neurons in every layer, which must match the file
+ * @return         the dtype of the file
+ * @throws IOException may be thrown when the file cannot be read or does not match the network
+ */
+   public static int readHeader(FileChannel channel, String path, int layers[]) throws IOException
+   {
+      int alpha, dtype;
+      ByteBuffer header = ByteBuffer.allocate((int) payloadOffset(layers)).order(ByteOrder.LITTLE_ENDIAN);
+
+      while (header.hasRemaining() && channel.read(header, header.position()) >= 0);
+      header.flip();
+
+      if (header.remaining() < INT_BYTES * FIXED_HEADER_INTS || header.getInt() != MAGIC)
+         throw new IOException(path + " is not a binary weights file");
+
+      if (header.getInt() != VERSION)
+         throw new IOException(path + " has an unsupported binary weights version");
+
+      dtype = header.getInt();
+      if (dtype != DTYPE_FLOAT32 && dtype != DTYPE_FLOAT64)
+         throw new IOException(path + " has an unknown dtype " + dtype);
+
+      if (header.getInt() != layers.length || header.remaining() < INT_BYTES * layers.length + LONG_BYTES)
+         throw new IOException(path + " does not have " + layers.length + " layers");
+
+      for (alpha = 0; alpha < layers.length; alpha++)
+      {
+         if (header.getInt() != layers[alpha])
+            throw new IOException(path + " does not match the size of layer " + alpha);
+      }
+
+      if (channel.size() != payloadOffset(layers) + payloadBytes(layers, dtype))
+         throw new IOException(path + " is truncated");
+
+      return dtype;
+   } // public static int readHeader(FileChannel channel, String path, int layers[])
+
+/**
+ * Finds where the payload of a binary weights file starts, i.e. the size of its header
+ * 
+ * @param layers  the number of neurons in every layer
+ * @return        the size of the header in bytes
+ */
+   public static long payloadOffset(int layers[])
+   {
+      return INT_BYTES * (FIXED_HEADER_INTS + layers.length) + LONG_BYTES;
+   }
+
+/**
+ * Finds the size of the payload of a binary weights file
+ * 
+ * @param layers  the number of neurons in every layer
+ * @param dtype   the number of bytes in every weight
+ * @return        the size of the payload in bytes
+ */
+   public static long payloadBytes(int layers[], int dtype)
+   {
+      int alpha;
+      long count = 0;
+
+      for (alpha = 1; alpha < layers.length; alpha++)
+      {
+         count += (long) layers[alpha - 1] * layers[alpha];
+      }
+      return count * dtype;
+   } // public static long payloadBytes(int layers[], int dtype)
+
+/**
+ * Adds a chunk of the payload to the checksum and writes all of it to the file
+ * 
+ * @param channel  the open weights file
+ * @param chunk    the bytes to write, from position to limit
+ * @param crc      the running checksum of the payload
+ * @throws IOException may be thrown when writing to the file fails
+ */
+   public static void writeChunk(FileChannel channel, ByteBuffer chunk, CRC32 crc) throws IOException
+   {
+      crc.update(chunk.duplicate());
+
+      while (chunk.hasRemaining())
+      {
+         channel.write(chunk);
+      }
+   } // public static void writeChunk(FileChannel channel, ByteBuffer chunk, CRC32 crc)
+
+/**
+ * Compares the checksum of the payload that was read with the one stored in the header
+ * 
+ * @param channel  the open weights file
+ * @param path     the path to the weights file, for error messages
+ * @param layers   the number of neurons in every layer
+ * @param crc      the checksum of the payload that was read
+ * @throws IOException may be thrown when the file cannot be read or the checksums differ
+ */
+   public static void checkChecksum(FileChannel channel, String path, int layers[], CRC32 crc) throws IOException
+   {
+      ByteBuffer stored = ByteBuffer.allocate(LONG_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      long position = payloadOffset(layers) - LONG_BYTES;
+
+      while (stored.hasRemaining() && channel.read(stored, position + stored.position()) >= 0);
+
+      if (stored.getLong(0) != crc.getValue())
+         throw new IOException(path + " failed its checksum");
+   } // public static void checkChecksum(FileChannel channel, String path, int layers[], CRC32 crc)
+
+/**
+ * Gets the checksum stored in the header of a binary weights file, without reading its payload
+ * 
+ * @param path    the path to the weights file
+ * @param layers  the number of neurons in every layer, which must match the file
+ * @return        the stored checksum
+ * @throws IOException may be thrown when the file cannot be read or does not match the network
+ */
+   public static long checksum(String path, int layers[]) throws IOException
+   {
+      ByteBuffer stored = ByteBuffer.allocate(LONG_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+      try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ))
+      {
+         readHeader(channel, path, layers);
+         while (stored.hasRemaining() && channel.read(stored, payloadOffset(layers) - LONG_BYTES + stored.position()) >= 0);
+      }
+      return stored.getLong(0);
+   } // public static long checksum(String path, int layers[])
+} // public class WeightsFile